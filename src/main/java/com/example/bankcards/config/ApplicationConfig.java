@@ -1,26 +1,44 @@
 package com.example.bankcards.config;
 
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.BoundedPasswordEncoder;
 import com.example.bankcards.util.Constants;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @Configuration
 @RequiredArgsConstructor
 @EnableTransactionManagement
+@EnableScheduling
 public class ApplicationConfig {
 
     private final UserRepository userRepository;
+    private final UserDetailsPasswordService userDetailsPasswordService;
+
+    @Value("${security.password.bcryptStrength:10}")
+    private int bcryptStrength;
+
+    @Value("${security.password.threads:0}")
+    private int hashingThreads;
+
+    @Value("${security.password.queueCapacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${security.password.maxWaitInMs:2000}")
+    private long hashingMaxWaitInMs;
 
     @Bean
     public UserDetailsService userDetailsService() {
@@ -32,12 +50,15 @@ public class ApplicationConfig {
     public AuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService());
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         return authProvider;
     }
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength),
+                threads, hashingQueueCapacity, hashingMaxWaitInMs);
     }
 
     @Bean
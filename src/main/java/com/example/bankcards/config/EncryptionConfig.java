@@ -1,13 +1,14 @@
 package com.example.bankcards.config;
 
+import com.example.bankcards.service.DataKeyService;
+import com.example.bankcards.util.crypto.AesGcmTextEncryptor;
+import com.example.bankcards.util.crypto.EnvelopeTextEncryptor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.encrypt.AesBytesEncryptor;
+import org.springframework.context.annotation.Primary;
 import org.springframework.security.crypto.encrypt.TextEncryptor;
 
-import java.util.Base64;
-
 @Configuration
 public class EncryptionConfig {
 
@@ -17,24 +18,18 @@ public class EncryptionConfig {
     @Value("${encryption.salt}")
     private String encryptionSalt;
 
+    /**
+     * Мастер-шифратор: шифрует ключи данных и расшифровывает значения форматов до конвертного шифрования.
+     */
     @Bean
-    public TextEncryptor textEncryptor() {
-        return new TextEncryptor() {
-            private final AesBytesEncryptor bytesEncryptor = new AesBytesEncryptor(encryptionPassword, encryptionSalt);
-
-            @Override
-            public String encrypt(String text) {
-                byte[] encrypted = bytesEncryptor.encrypt(text.getBytes());
-                return Base64.getEncoder().encodeToString(encrypted);
-            }
+    public AesGcmTextEncryptor masterKeyEncryptor() {
+        return new AesGcmTextEncryptor(encryptionPassword, encryptionSalt);
+    }
 
-            @Override
-            public String decrypt(String encryptedText) {
-                byte[] decoded = Base64.getDecoder().decode(encryptedText);
-                byte[] decrypted = bytesEncryptor.decrypt(decoded);
-                return new String(decrypted);
-            }
-        };
+    @Bean
+    @Primary
+    public TextEncryptor textEncryptor(DataKeyService dataKeyService, AesGcmTextEncryptor masterKeyEncryptor) {
+        return new EnvelopeTextEncryptor(dataKeyService, masterKeyEncryptor);
     }
 
 }
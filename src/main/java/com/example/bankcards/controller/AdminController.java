@@ -4,11 +4,17 @@ import com.example.bankcards.dto.auth.RegisterRequest;
 import com.example.bankcards.dto.card.BalanceUpdateRequest;
 import com.example.bankcards.dto.card.CardCreateRequest;
 import com.example.bankcards.dto.card.CardDto;
+import com.example.bankcards.dto.card.CardLookupRequest;
+import com.example.bankcards.dto.common.CursorPage;
+import com.example.bankcards.dto.encryption.ReencryptionStatus;
 import com.example.bankcards.dto.user.UserDto;
 import com.example.bankcards.dto.user.UserUpdateRequest;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.service.AdminService;
+import com.example.bankcards.service.AuthService;
+import com.example.bankcards.service.CardReencryptionService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.IdempotencyService;
 import com.example.bankcards.util.Constants;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -36,6 +42,9 @@ public class AdminController {
 
     private final AdminService adminService;
     private final CardService cardService;
+    private final IdempotencyService idempotencyService;
+    private final CardReencryptionService cardReencryptionService;
+    private final AuthService authService;
 
     @GetMapping("/cards")
     public ResponseEntity<Page<CardDto>> getAllCards(
@@ -45,12 +54,42 @@ public class AdminController {
         return ResponseEntity.ok(cards);
     }
 
+    @GetMapping("/cards/scroll")
+    @Operation(summary = "Get cards using keyset pagination")
+    public ResponseEntity<CursorPage<CardDto>> scrollCards(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        CursorPage<CardDto> cards = adminService.getCardsAfter(cursor, size);
+        return ResponseEntity.ok(cards);
+    }
+
+    @PostMapping("/cards/lookup")
+    @Operation(summary = "Find card by full card number")
+    public ResponseEntity<CardDto> lookupCard(@Valid @RequestBody CardLookupRequest request) {
+        CardDto card = adminService.findCardByNumber(request.getCardNumber());
+        return ResponseEntity.ok(card);
+    }
+
     @PatchMapping("/cards/balance")
     @Operation(summary = "Update card balance")
     public ResponseEntity<CardDto> updateCardBalance(
-            @Valid @RequestBody BalanceUpdateRequest request) {
+            @Valid @RequestBody BalanceUpdateRequest request,
+            @RequestHeader(value = Constants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal User user) {
+
+        CardDto card = idempotencyService.execute(idempotencyKey, user.getId(), "updateCardBalance", request,
+                CardDto.class, () -> adminService.updateCardBalance(request));
+        return ResponseEntity.ok(card);
+    }
+
+    @PatchMapping("/cards/{cardId}/striping")
+    @Operation(summary = "Set the number of balance slots for a hot card")
+    public ResponseEntity<CardDto> updateCardStriping(
+            @PathVariable UUID cardId,
+            @RequestParam int slots) {
 
-        CardDto card = adminService.updateCardBalance(request);
+        CardDto card = adminService.updateCardStriping(cardId, slots);
         return ResponseEntity.ok(card);
     }
 
@@ -93,6 +132,25 @@ public class AdminController {
         return ResponseEntity.ok(Constants.CARD_DELETED_MSG);
     }
 
+    @PostMapping("/encryption/reencrypt")
+    @Operation(summary = "Rotate the data key and re-encrypt card numbers in the background")
+    public ResponseEntity<ReencryptionStatus> startReencryption() {
+        ReencryptionStatus status = cardReencryptionService.start();
+        return ResponseEntity.accepted().body(status);
+    }
+
+    @GetMapping("/encryption/reencrypt")
+    public ResponseEntity<ReencryptionStatus> getReencryptionStatus() {
+        return ResponseEntity.ok(cardReencryptionService.getStatus());
+    }
+
+    @PostMapping("/users/{userId}/logout-all")
+    @Operation(summary = "Revoke all sessions of the user")
+    public ResponseEntity<Void> logoutUserEverywhere(@PathVariable UUID userId) {
+        authService.revokeAllSessions(userId);
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping("/users/create")
     public ResponseEntity<UserDto> createUser(@RequestBody RegisterRequest registerRequest) {
         UserDto userDto = adminService.createUser(registerRequest);
@@ -107,6 +165,15 @@ public class AdminController {
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/users/scroll")
+    public ResponseEntity<CursorPage<UserDto>> scrollUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        CursorPage<UserDto> users = adminService.getUsersAfter(cursor, size);
+        return ResponseEntity.ok(users);
+    }
+
     @GetMapping("/users/{userId}")
     public ResponseEntity<UserDto> getUser(@PathVariable UUID userId) {
         UserDto user = adminService.getUserById(userId);
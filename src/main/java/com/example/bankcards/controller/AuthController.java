@@ -3,6 +3,7 @@ package com.example.bankcards.controller;
 import com.example.bankcards.dto.auth.AuthRequest;
 import com.example.bankcards.dto.auth.AuthResponse;
 import com.example.bankcards.dto.auth.RegisterRequest;
+import com.example.bankcards.entity.User;
 import com.example.bankcards.service.AuthService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -10,6 +11,8 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -31,8 +34,10 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest authRequest, HttpServletResponse response) {
-        var resp = authService.login(authRequest, response);
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest authRequest,
+                                              HttpServletRequest request,
+                                              HttpServletResponse response) {
+        var resp = authService.login(authRequest, request, response);
         return ResponseEntity.ok(resp);
     }
 
@@ -48,4 +53,13 @@ public class AuthController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/logout-all")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> logoutAll(@AuthenticationPrincipal User user,
+                                       HttpServletRequest request,
+                                       HttpServletResponse response) {
+        authService.logoutAll(user, request, response);
+        return ResponseEntity.noContent().build();
+    }
+
 }
@@ -1,13 +1,22 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.card.BalanceResponse;
+import com.example.bankcards.dto.card.BatchTransferRequest;
+import com.example.bankcards.dto.card.BatchTransferResponse;
 import com.example.bankcards.dto.card.CardDto;
 import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.dto.common.SlicePage;
+import com.example.bankcards.dto.common.TotalMode;
+import com.example.bankcards.dto.ledger.LedgerEntryDto;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.security.ratelimit.RateLimited;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.IdempotencyService;
+import com.example.bankcards.service.LedgerService;
 import com.example.bankcards.service.TransactionService;
 import com.example.bankcards.util.Constants;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -31,8 +40,11 @@ public class UserController {
 
     private final CardService cardService;
     private final TransactionService transactionService;
+    private final LedgerService ledgerService;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping
+    @RateLimited("cards")
     public ResponseEntity<Page<CardDto>> getUserCards(
             @AuthenticationPrincipal User user,
             @RequestParam(required = false) String search,
@@ -41,7 +53,19 @@ public class UserController {
         return ResponseEntity.ok(userCards);
     }
 
+    @GetMapping("/slice")
+    @RateLimited("cards")
+    public ResponseEntity<SlicePage<CardDto>> getUserCardsSlice(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "NONE") TotalMode total,
+            @PageableDefault(size = 10) Pageable pageable) {
+        SlicePage<CardDto> userCards = cardService.getUserCardsSlice(user, pageable, search, total);
+        return ResponseEntity.ok(userCards);
+    }
+
     @GetMapping("/{cardId}")
+    @RateLimited("cards")
     public ResponseEntity<CardDto> getCardDetails(@PathVariable UUID cardId, @AuthenticationPrincipal User user) {
         CardDto cardDetail = cardService.getCardById(cardId, user);
         return ResponseEntity.ok(cardDetail);
@@ -54,28 +78,61 @@ public class UserController {
     }
 
     @PostMapping("/transfer")
+    @RateLimited("transfer")
     public ResponseEntity<String> transferBetweenCards(
             @RequestBody TransferRequest request,
+            @RequestHeader(value = Constants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal User user) {
-        transactionService.transferBetweenOwnCards(
-                request.getFromCardId(),
-                request.getToCardId(),
-                request.getAmount(),
-                user
-        );
-        return ResponseEntity.ok(Constants.SUCCESSFUL_TRANSFER);
+        String result = idempotencyService.execute(idempotencyKey, user.getId(), "transfer", request, String.class, () -> {
+            transactionService.transferBetweenOwnCards(
+                    request.getFromCardId(),
+                    request.getToCardId(),
+                    request.getAmount(),
+                    user
+            );
+            return Constants.SUCCESSFUL_TRANSFER;
+        });
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/transfer/batch")
+    @RateLimited("transfer")
+    public ResponseEntity<BatchTransferResponse> transferBatch(
+            @Valid @RequestBody BatchTransferRequest request,
+            @RequestHeader(value = Constants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal User user) {
+        BatchTransferResponse response = idempotencyService.execute(idempotencyKey, user.getId(), "transferBatch",
+                request, BatchTransferResponse.class, () -> transactionService.transferBatch(
+                        request.getTransfers(),
+                        request.isAtomic(),
+                        user
+                ));
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{cardId}/history")
+    @RateLimited("cards")
+    public ResponseEntity<Page<LedgerEntryDto>> getCardHistory(
+            @PathVariable UUID cardId,
+            @AuthenticationPrincipal User user,
+            @PageableDefault(size = 20) Pageable pageable) {
+        Page<LedgerEntryDto> history = ledgerService.getCardHistory(cardId, user, pageable);
+        return ResponseEntity.ok(history);
     }
 
     @GetMapping("/balance")
+    @RateLimited("balance")
     public ResponseEntity<BalanceResponse> getUserBalance(
             @AuthenticationPrincipal User user,
+            @RequestParam(defaultValue = "true") boolean includeCards,
             @PageableDefault() Pageable pageable) {
 
-        BalanceResponse balance = cardService.getUserBalance(user, pageable);
+        BalanceResponse balance = cardService.getUserBalance(user, pageable, includeCards);
         return ResponseEntity.ok(balance);
     }
 
     @GetMapping("/card/{cardId}/balance")
+    @RateLimited("balance")
     public ResponseEntity<BigDecimal> getCardBalance(
             @PathVariable UUID cardId,
             @AuthenticationPrincipal User user) {
@@ -0,0 +1,26 @@
+package com.example.bankcards.dto.card;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferRequest {
+
+    @NotEmpty(message = "At least one transfer is required")
+    @Size(max = 100, message = "No more than 100 transfers per batch")
+    private List<@Valid @NotNull TransferRequest> transfers;
+
+    @Builder.Default
+    private boolean atomic = true;
+}
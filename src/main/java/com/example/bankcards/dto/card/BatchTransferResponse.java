@@ -0,0 +1,21 @@
+package com.example.bankcards.dto.card;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResponse {
+
+    private List<TransferResult> results;
+
+    private int completed;
+
+    private int failed;
+}
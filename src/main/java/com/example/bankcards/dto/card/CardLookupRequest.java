@@ -0,0 +1,21 @@
+package com.example.bankcards.dto.card;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CardLookupRequest {
+
+    @NotBlank(message = "Card number is required")
+    @Pattern(regexp = "^[0-9]{16}$", message = "Card number must be 16 digits")
+    @ToString.Exclude
+    private String cardNumber;
+}
@@ -24,5 +24,6 @@ public class TransferRequest {
     private UUID toCardId;
 
     @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Amount must be positive")
     private BigDecimal amount;
 }
@@ -0,0 +1,34 @@
+package com.example.bankcards.dto.card;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferResult {
+
+    private int index;
+
+    private UUID fromCardId;
+
+    private UUID toCardId;
+
+    private BigDecimal amount;
+
+    private Status status;
+
+    private String message;
+
+    public enum Status {
+        COMPLETED,
+        FAILED,
+        ROLLED_BACK
+    }
+}
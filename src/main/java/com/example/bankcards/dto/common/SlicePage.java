@@ -0,0 +1,28 @@
+package com.example.bankcards.dto.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SlicePage<T> {
+
+    private List<T> content;
+
+    private int page;
+
+    private int size;
+
+    private boolean hasNext;
+
+    /**
+     * Приблизительное общее количество элементов; null, если оно не запрашивалось или недоступно.
+     */
+    private Long approximateTotal;
+}
@@ -0,0 +1,6 @@
+package com.example.bankcards.dto.common;
+
+public enum TotalMode {
+    NONE,
+    APPROXIMATE
+}
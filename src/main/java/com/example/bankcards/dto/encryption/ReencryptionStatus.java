@@ -0,0 +1,30 @@
+package com.example.bankcards.dto.encryption;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ReencryptionStatus {
+
+    private boolean running;
+
+    private UUID keyId;
+
+    private long processed;
+
+    private long rewritten;
+
+    private long failed;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+}
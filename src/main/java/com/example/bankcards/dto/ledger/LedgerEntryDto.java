@@ -0,0 +1,29 @@
+package com.example.bankcards.dto.ledger;
+
+import com.example.bankcards.entity.enums.LedgerDirection;
+import com.example.bankcards.entity.enums.LedgerOperation;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LedgerEntryDto {
+
+    private UUID journalId;
+
+    private LedgerDirection direction;
+
+    private BigDecimal amount;
+
+    private LedgerOperation operation;
+
+    private Instant createdAt;
+}
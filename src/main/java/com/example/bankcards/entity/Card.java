@@ -8,6 +8,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.UuidGenerator;
 
 import java.math.BigDecimal;
@@ -27,8 +28,14 @@ public class Card {
     private UUID id;
 
     @NotBlank
+    @Column(columnDefinition = "text")
     private String cardNumber;
 
+    /**
+     * Слепой индекс номера карты (HMAC-SHA256), используется для поиска по полному номеру.
+     */
+    private String cardNumberHash;
+
     @NotBlank
     private String lastFourDigits;
 
@@ -45,7 +52,21 @@ public class Card {
     @NotNull
     private BigDecimal balance;
 
+    /**
+     * Количество слотов распределенного баланса. 0 - баланс хранится только в строке карты.
+     */
+    private int balanceSlots;
+
+    @Formula("(CASE WHEN balance_slots > 0 THEN " +
+            "COALESCE((SELECT SUM(s.balance) FROM card_balance_slots s WHERE s.card_id = id), 0) " +
+            "ELSE 0 END)")
+    private BigDecimal stripedBalance;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
+
+    public BigDecimal getTotalBalance() {
+        return stripedBalance == null ? balance : balance.add(stripedBalance);
+    }
 }
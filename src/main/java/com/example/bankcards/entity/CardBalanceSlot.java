@@ -0,0 +1,37 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Слот распределенного баланса карты. Зачисления на карту с распределенным балансом
+ * попадают в случайный слот, поэтому конкурентные зачисления не блокируют одну строку.
+ */
+@Entity(name = "card_balance_slots")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CardBalanceSlot {
+
+    @Id
+    @GeneratedValue
+    @UuidGenerator(style = UuidGenerator.Style.TIME)
+    private UUID id;
+
+    @NotNull
+    private UUID cardId;
+
+    private int slot;
+
+    @NotNull
+    private BigDecimal balance;
+}
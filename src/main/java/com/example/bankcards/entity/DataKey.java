@@ -0,0 +1,37 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Ключ данных для конвертного шифрования. Хранится только в зашифрованном мастер-ключом виде.
+ */
+@Entity(name = "data_keys")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DataKey {
+
+    @Id
+    @GeneratedValue
+    @UuidGenerator(style = UuidGenerator.Style.TIME)
+    private UUID id;
+
+    @NotNull
+    @ToString.Exclude
+    @Column(columnDefinition = "text")
+    private String wrappedKey;
+
+    @NotNull
+    private Instant createdAt;
+}
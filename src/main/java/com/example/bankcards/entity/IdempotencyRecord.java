@@ -0,0 +1,43 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity(name = "idempotency_keys")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue
+    @UuidGenerator(style = UuidGenerator.Style.TIME)
+    private UUID id;
+
+    @NotNull
+    private UUID userId;
+
+    @NotNull
+    private String idempotencyKey;
+
+    @NotNull
+    private String requestHash;
+
+    @Column(columnDefinition = "text")
+    private String responseBody;
+
+    @NotNull
+    private Instant createdAt;
+
+    @NotNull
+    private Instant expiresAt;
+}
@@ -0,0 +1,54 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.entity.enums.LedgerDirection;
+import com.example.bankcards.entity.enums.LedgerOperation;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Проводка журнала операций по картам. Каждая операция записывается двумя проводками
+ * (дебет и кредит) с общим journalId. Проводка с пустым cardId относится к системному
+ * счету банка и используется как корреспондирующая сторона для корректировок баланса.
+ */
+@Entity(name = "ledger_entries")
+@Immutable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue
+    @UuidGenerator(style = UuidGenerator.Style.TIME)
+    private UUID id;
+
+    @NotNull
+    private UUID journalId;
+
+    private UUID cardId;
+
+    @Enumerated(EnumType.STRING)
+    @NotNull
+    private LedgerDirection direction;
+
+    @NotNull
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @NotNull
+    private LedgerOperation operation;
+
+    @NotNull
+    private Instant createdAt;
+}
@@ -23,8 +23,11 @@ public class Token {
     @UuidGenerator(style = UuidGenerator.Style.TIME)
     private UUID id;
 
-    @Column(nullable = false, unique = true)
-    private String token;
+    /**
+     * SHA-256 от значения refresh токена в hex. Само значение токена не хранится.
+     */
+    @Column(nullable = false, unique = true, length = 64)
+    private String tokenHash;
 
     @Enumerated(EnumType.STRING)
     private TokenType type;
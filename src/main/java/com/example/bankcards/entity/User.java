@@ -49,6 +49,13 @@ public class User implements UserDetails {
     @Builder.Default
     private boolean accountNonLocked = true;
 
+    /**
+     * Эпоха токенов пользователя. Токены с меньшей эпохой в claims считаются отозванными.
+     * Изменяется только запросом {@code UserRepository.incrementTokenEpoch}.
+     */
+    @Column(updatable = false)
+    private int tokenEpoch;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority(role.name()));
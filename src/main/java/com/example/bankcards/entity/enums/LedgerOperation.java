@@ -0,0 +1,8 @@
+package com.example.bankcards.entity.enums;
+
+public enum LedgerOperation {
+
+    OPENING_BALANCE,
+    TRANSFER,
+    BALANCE_ADJUSTMENT
+}
@@ -0,0 +1,53 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardBalanceSlot;
+import com.example.bankcards.repository.projection.SlotBalanceView;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CardBalanceSlotRepository extends JpaRepository<CardBalanceSlot, UUID> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM card_balance_slots s WHERE s.cardId = :cardId ORDER BY s.slot")
+    List<CardBalanceSlot> findByCardIdForUpdate(@Param("cardId") UUID cardId);
+
+    /**
+     * Блокирует слоты карты и возвращает их текущие балансы из базы данных, минуя persistence context.
+     */
+    @Query(value = "SELECT s.id AS id, s.balance AS balance FROM card_balance_slots s " +
+            "WHERE s.card_id = :cardId ORDER BY s.slot FOR UPDATE", nativeQuery = true)
+    List<SlotBalanceView> lockBalancesByCardId(@Param("cardId") UUID cardId);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE card_balance_slots SET balance = balance - :amount " +
+            "WHERE id = :id AND balance >= :amount", nativeQuery = true)
+    int debitSlot(@Param("id") UUID id, @Param("amount") BigDecimal amount);
+
+    @Query("SELECT COALESCE(SUM(s.balance), 0) FROM card_balance_slots s WHERE s.cardId = :cardId")
+    BigDecimal sumBalanceByCardId(@Param("cardId") UUID cardId);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE card_balance_slots s SET balance = s.balance + :amount " +
+            "FROM cards c " +
+            "WHERE s.card_id = c.id AND c.id = :cardId AND c.user_id = :userId " +
+            "AND c.status = 'ACTIVE' AND c.balance_slots > 0 " +
+            "AND s.slot = mod(:seed, c.balance_slots)", nativeQuery = true)
+    int creditRandomSlot(@Param("cardId") UUID cardId,
+                         @Param("userId") UUID userId,
+                         @Param("seed") int seed,
+                         @Param("amount") BigDecimal amount);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM card_balance_slots s WHERE s.cardId = :cardId")
+    void deleteByCardId(@Param("cardId") UUID cardId);
+}
@@ -3,13 +3,24 @@ package com.example.bankcards.repository;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.repository.projection.CardBalanceSummary;
+import com.example.bankcards.repository.projection.CardBalanceView;
+import com.example.bankcards.repository.projection.CardCipherView;
+import com.example.bankcards.repository.projection.CardState;
+import com.example.bankcards.repository.projection.CardView;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,25 +28,123 @@ import java.util.UUID;
 @Repository
 public interface CardRepository extends JpaRepository<Card, UUID> {
 
-    Page<Card> findByUser(User user, Pageable pageable);
+    String CARD_VIEW_SELECT = "SELECT c.id AS id, c.lastFourDigits AS lastFourDigits, c.cardOwner AS cardOwner, " +
+            "c.expiryDate AS expiryDate, c.status AS status, c.balance AS balance, " +
+            "c.stripedBalance AS stripedBalance FROM cards c ";
+
+    String OWNER_SEARCH_FILTER = "WHERE c.user = :user AND LOWER(c.cardOwner) LIKE :pattern ESCAPE '!'";
+
+    Page<CardView> findByUser(User user, Pageable pageable);
+
+    Slice<CardView> findSliceByUser(User user, Pageable pageable);
+
+    Page<CardView> findAllProjectedBy(Pageable pageable);
+
+    long countByUserId(UUID userId);
+
+    List<CardView> findAllByOrderByIdAsc(Limit limit);
+
+    List<CardView> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+    Slice<CardBalanceView> findBalancesByUser(User user, Pageable pageable);
+
+    @Query(value = "SELECT COALESCE(SUM(c.balance), 0) + COALESCE((" +
+            "    SELECT SUM(s.balance) FROM card_balance_slots s JOIN cards sc ON sc.id = s.card_id " +
+            "    WHERE sc.user_id = :userId), 0) AS \"totalBalance\", " +
+            "COUNT(*) AS \"totalCards\", " +
+            "COUNT(*) FILTER (WHERE c.status = 'ACTIVE') AS \"activeCards\" " +
+            "FROM cards c WHERE c.user_id = :userId", nativeQuery = true)
+    CardBalanceSummary summarizeBalancesByUserId(@Param("userId") UUID userId);
 
     Page<Card> findByUserAndStatus(User user, CardStatus status, Pageable pageable);
 
     Optional<Card> findByIdAndUser(UUID uuid, User user);
 
-    Page<Card> findByUserAndLastFourDigits(User user, String lastFourDigits, Pageable pageable);
+    Optional<CardView> findViewByIdAndUser(UUID id, User user);
+
+    Optional<CardView> findViewByCardNumberHash(String cardNumberHash);
+
+    boolean existsByCardNumberHash(String cardNumberHash);
+
+    @Query(value = "SELECT nextval('card_number_block_seq')", nativeQuery = true)
+    long nextCardNumberBlock();
+
+    List<CardCipherView> findByCardNumberHashIsNullOrderByIdAsc(Limit limit);
+
+    List<CardCipherView> findByCardNumberHashIsNullAndIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+    List<CardCipherView> findCiphersByOrderByIdAsc(Limit limit);
+
+    List<CardCipherView> findCiphersByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+    @Modifying
+    @Query("UPDATE cards c SET c.cardNumber = :newValue WHERE c.id = :id AND c.cardNumber = :oldValue")
+    int replaceCardNumber(@Param("id") UUID id, @Param("oldValue") String oldValue, @Param("newValue") String newValue);
+
+    @Modifying
+    @Query("UPDATE cards c SET c.cardNumberHash = :hash WHERE c.id = :id AND c.cardNumberHash IS NULL")
+    int updateCardNumberHash(@Param("id") UUID id, @Param("hash") String hash);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM cards c WHERE c.id = :id")
+    Optional<Card> findByIdForUpdate(@Param("id") UUID id);
+
+    /**
+     * Блокирует строку карты и возвращает ее текущий баланс из базы данных, минуя persistence context.
+     */
+    @Query(value = "SELECT c.balance FROM cards c WHERE c.id = :id FOR UPDATE", nativeQuery = true)
+    Optional<BigDecimal> lockBalanceById(@Param("id") UUID id);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE cards c SET c.balance = c.balance - :amount WHERE c.id = :id AND c.balance >= :amount")
+    int debitBalance(@Param("id") UUID id, @Param("amount") BigDecimal amount);
+
+    @Query(value = "SELECT c.balance_slots FROM cards c WHERE c.id = :id AND c.user_id = :userId FOR UPDATE",
+            nativeQuery = true)
+    Optional<Integer> lockBalanceSlotsByIdAndUserId(@Param("id") UUID id, @Param("userId") UUID userId);
+
+    Optional<CardState> findStateByIdAndUser(UUID id, User user);
+
+    Page<CardView> findByUserAndLastFourDigits(User user, String lastFourDigits, Pageable pageable);
+
+    Slice<CardView> findSliceByUserAndLastFourDigits(User user, String lastFourDigits, Pageable pageable);
 
-    Page<Card> findByUserAndCardOwnerContainingIgnoreCase(User user, String cardOwner, Pageable pageable);
 
     List<Card> findByStatus(CardStatus status);
 
-    @Query("SELECT c FROM cards c WHERE c.user = :user AND " +
-            "(c.lastFourDigits = :search OR " +
-            "LOWER(c.cardOwner) LIKE LOWER(CONCAT('%', :search, '%')))")
-    Page<Card> searchByUser(@Param("user") User user,
-                            @Param("search") String search,
-                            Pageable pageable);
+    /**
+     * Поиск карт пользователя по подстроке имени владельца. Условие LOWER(card_owner) LIKE
+     * совпадает с выражением триграммного индекса idx_cards_card_owner_trgm.
+     *
+     * @param pattern шаблон LIKE в нижнем регистре, спецсимволы экранированы символом '!'
+     */
+    @Query(value = CARD_VIEW_SELECT + OWNER_SEARCH_FILTER,
+            countQuery = "SELECT COUNT(c) FROM cards c " + OWNER_SEARCH_FILTER)
+    Page<CardView> searchByUser(@Param("user") User user,
+                                @Param("pattern") String pattern,
+                                Pageable pageable);
+
+    @Query(CARD_VIEW_SELECT + OWNER_SEARCH_FILTER)
+    Slice<CardView> searchSliceByUser(@Param("user") User user,
+                                      @Param("pattern") String pattern,
+                                      Pageable pageable);
 
     boolean existsByLastFourDigitsAndUser(String lastFourDigits, User user);
 
+    boolean existsByIdAndUser(UUID id, User user);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE cards c SET c.balance = c.balance - :amount " +
+            "WHERE c.id = :id AND c.user = :user " +
+            "AND c.status = com.example.bankcards.entity.enums.CardStatus.ACTIVE " +
+            "AND c.balance >= :amount")
+    int debitIfActive(@Param("id") UUID id, @Param("user") User user, @Param("amount") BigDecimal amount);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE cards c SET c.balance = c.balance + :amount " +
+            "WHERE c.id = :id AND c.user = :user " +
+            "AND c.status = com.example.bankcards.entity.enums.CardStatus.ACTIVE " +
+            "AND c.balanceSlots = 0")
+    int creditIfActive(@Param("id") UUID id, @Param("user") User user, @Param("amount") BigDecimal amount);
+
 }
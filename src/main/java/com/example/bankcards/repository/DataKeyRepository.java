@@ -0,0 +1,14 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.DataKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface DataKeyRepository extends JpaRepository<DataKey, UUID> {
+
+    Optional<DataKey> findFirstByOrderByCreatedAtDesc();
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, UUID> {
+
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(UUID userId, String idempotencyKey);
+
+    @Modifying
+    @Query("DELETE FROM idempotency_keys r WHERE r.userId = :userId AND r.idempotencyKey = :key AND r.expiresAt < :now")
+    int deleteExpired(@Param("userId") UUID userId, @Param("key") String key, @Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE FROM idempotency_keys r WHERE r.expiresAt < :now")
+    int deleteAllExpired(@Param("now") Instant now);
+}
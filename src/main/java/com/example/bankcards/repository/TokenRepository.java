@@ -3,8 +3,12 @@ package com.example.bankcards.repository;
 import com.example.bankcards.entity.Token;
 import com.example.bankcards.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,9 +16,18 @@ import java.util.UUID;
 @Repository
 public interface TokenRepository extends JpaRepository<Token, UUID> {
 
-    Optional<Token> findByToken(String token);
+    Optional<Token> findByTokenHash(String tokenHash);
 
     List<Token> findAllByUserAndRevokedFalseAndExpiredFalse(User user);
 
     void deleteAllByUser(User user);
+
+    @Modifying
+    @Query("UPDATE tokens t SET t.revoked = true, t.expired = true WHERE t.user.id = :userId AND t.revoked = false")
+    int revokeAllByUserId(@Param("userId") UUID userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM tokens WHERE id IN (" +
+            "SELECT id FROM tokens WHERE revoked OR expires_at < :now LIMIT :batchSize)", nativeQuery = true)
+    int deleteExpiredOrRevokedBatch(@Param("now") Instant now, @Param("batchSize") int batchSize);
 }
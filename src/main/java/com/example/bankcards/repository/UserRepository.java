@@ -1,9 +1,14 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -16,4 +21,16 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
 
     Boolean existsByEmail(String email);
+
+    List<User> findAllByOrderByIdAsc(Limit limit);
+
+    List<User> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+    @Modifying
+    @Query("UPDATE users u SET u.password = :password WHERE u.email = :email")
+    int updatePassword(@Param("email") String email, @Param("password") String password);
+
+    @Modifying
+    @Query("UPDATE users u SET u.tokenEpoch = u.tokenEpoch + 1 WHERE u.id = :id")
+    int incrementTokenEpoch(@Param("id") UUID id);
 }
@@ -0,0 +1,13 @@
+package com.example.bankcards.repository.projection;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public interface CardBalanceView {
+
+    UUID getId();
+
+    BigDecimal getBalance();
+
+    BigDecimal getStripedBalance();
+}
@@ -0,0 +1,10 @@
+package com.example.bankcards.repository.projection;
+
+import java.util.UUID;
+
+public interface CardCipherView {
+
+    UUID getId();
+
+    String getCardNumber();
+}
@@ -0,0 +1,10 @@
+package com.example.bankcards.repository.projection;
+
+import com.example.bankcards.entity.enums.CardStatus;
+
+public interface CardState {
+
+    CardStatus getStatus();
+
+    int getBalanceSlots();
+}
@@ -0,0 +1,27 @@
+package com.example.bankcards.repository.projection;
+
+import com.example.bankcards.entity.enums.CardStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Набор колонок карты, необходимый для ответа API. Не содержит зашифрованного номера и владельца-пользователя.
+ */
+public interface CardView {
+
+    UUID getId();
+
+    String getLastFourDigits();
+
+    String getCardOwner();
+
+    LocalDate getExpiryDate();
+
+    CardStatus getStatus();
+
+    BigDecimal getBalance();
+
+    BigDecimal getStripedBalance();
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.repository.projection;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public interface SlotBalanceView {
+
+    UUID getId();
+
+    BigDecimal getBalance();
+}
@@ -0,0 +1,94 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.ApiException;
+import com.example.bankcards.util.Constants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Выполняет хеширование и проверку паролей в отдельном пуле потоков ограниченного размера.
+ * Число одновременно вычисляемых хешей не превышает размер пула, ожидающие запросы ставятся
+ * в ограниченную очередь, а при ее переполнении или превышении времени ожидания запрос
+ * сразу отклоняется с кодом 503. Так всплеск входов не занимает все процессоры сервера.
+ * Отмена по таймауту не прерывает уже начатое вычисление: BCrypt не проверяет флаг прерывания,
+ * и рабочий поток остается занят до конца хеширования. Поэтому реальное ограничение нагрузки
+ * дает только размер очереди, а таймаут лишь освобождает поток запроса.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitInMs;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long maxWaitInMs) {
+        this.delegate = delegate;
+        this.maxWaitInMs = maxWaitInMs;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("execute[1]: password hashing queue is full");
+            throw new ApiException(HttpStatus.SERVICE_UNAVAILABLE, Constants.PASSWORD_HASHING_BUSY_MSG, e);
+        }
+
+        try {
+            return future.get(maxWaitInMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("execute[2]: password hashing timed out after {} ms", maxWaitInMs);
+            throw new ApiException(HttpStatus.SERVICE_UNAVAILABLE, Constants.PASSWORD_HASHING_BUSY_MSG, e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ApiException(HttpStatus.SERVICE_UNAVAILABLE, Constants.PASSWORD_HASHING_BUSY_MSG, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.entity.User;
+import com.example.bankcards.security.service.AccessTokenDenyList;
+import com.example.bankcards.security.service.UserStateService;
 import com.example.bankcards.util.Constants;
 import com.example.bankcards.util.parser.JwtParser;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,6 +21,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
@@ -24,6 +29,8 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final UserDetailsService userDetailsService;
+    private final UserStateService userStateService;
+    private final AccessTokenDenyList accessTokenDenyList;
     private final JwtParser jwtParser;
 
     @Override
@@ -40,14 +47,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         jwt = authHeader.substring(Constants.BEARER_PREFIX.length());
 
-        String username = jwtParser.extractUsername(jwt);
+        Claims claims = jwtParser.parseClaims(jwt);
+        String username = claims.getSubject();
         log.debug("doFilterInternal[1]: username: {}", username);
 
 
+        if (claims.getId() != null && accessTokenDenyList.isRevoked(claims.getId(), claims.getExpiration().toInstant())) {
+            log.debug("doFilterInternal[3]: access token was revoked: {}", claims.getId());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = resolvePrincipal(claims);
             log.debug("doFilterInternal[2]: userDetails: {}", userDetails);
-            if (jwtParser.isTokenValid(jwt, userDetails)) {
+            if (userDetails != null
+                    && userDetails.isEnabled()
+                    && userDetails.isAccountNonLocked()
+                    && jwtParser.isTokenValid(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -62,4 +79,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails resolvePrincipal(Claims claims) {
+        String userId = claims.get(Constants.USER_ID_CLAIM, String.class);
+        if (userId == null) {
+            UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+            return userDetails instanceof User user && user.getTokenEpoch() > tokenEpoch(claims) ? null : userDetails;
+        }
+
+        UUID id = UUID.fromString(userId);
+        return userStateService.getState(id)
+                .filter(state -> state.email().equals(claims.getSubject()))
+                .filter(state -> state.role().name().equals(claims.get(Constants.ROLE_CLAIM, String.class)))
+                .filter(state -> state.tokenEpoch() <= tokenEpoch(claims))
+                .map(state -> User.builder()
+                        .id(id)
+                        .email(state.email())
+                        .role(state.role())
+                        .enabled(state.enabled())
+                        .accountNonLocked(state.accountNonLocked())
+                        .build())
+                .orElse(null);
+    }
+
+    private static int tokenEpoch(Claims claims) {
+        Integer tokenEpoch = claims.get(Constants.TOKEN_EPOCH_CLAIM, Integer.class);
+        return tokenEpoch == null ? 0 : tokenEpoch;
+    }
 }
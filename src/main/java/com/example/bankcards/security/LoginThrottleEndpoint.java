@@ -0,0 +1,27 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.security.service.LoginThrottle;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "loginthrottle")
+@RequiredArgsConstructor
+public class LoginThrottleEndpoint {
+
+    private final LoginThrottle loginThrottle;
+
+    @ReadOperation
+    public Map<String, Object> loginThrottle(@Nullable String ip, @Nullable String email) {
+        Map<String, Object> state = loginThrottle.snapshot();
+        if (ip != null || email != null) {
+            state.put("estimate", loginThrottle.estimate(ip, email));
+        }
+        return state;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.bankcards.security.limit;
+
+import com.example.bankcards.util.Constants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Отклоняет запросы с кодом 503, когда число одновременно обрабатываемых запросов
+ * достигло адаптивного лимита. Вход и переводы имеют наивысший приоритет,
+ * административные списки - наименьший.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AdaptiveConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestPriority priority = priorityOf(request);
+        if (!limiter.tryAcquire(priority)) {
+            log.debug("doFilterInternal[1]: shedding {} request to {}", priority, request.getRequestURI());
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release(priority, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator/");
+    }
+
+    /**
+     * Пишет ответ 503 напрямую, без sendError: ERROR-диспетчеризация на /error прошла бы авторизацию
+     * для анонимного запроса и превратилась бы в 401.
+     */
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, Constants.SERVER_OVERLOADED_MSG));
+    }
+
+    private static RequestPriority priorityOf(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.startsWith("/api/v1/auth/") || path.startsWith("/api/v1/user/cards/transfer")) {
+            return RequestPriority.CRITICAL;
+        }
+        if (path.startsWith("/api/v1/admin/") && HttpMethod.GET.matches(request.getMethod())) {
+            return RequestPriority.LOW;
+        }
+        return RequestPriority.NORMAL;
+    }
+}
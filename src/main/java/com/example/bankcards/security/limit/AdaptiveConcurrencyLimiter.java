@@ -0,0 +1,191 @@
+package com.example.bankcards.security.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Адаптивный лимит одновременно обрабатываемых запросов (градиентный алгоритм в духе Gradient2).
+ * Время обработки собирается окнами отдельно для каждого приоритета. По окончании окна средняя задержка
+ * окна сравнивается с долгосрочным экспоненциальным средним этого же приоритета; градиент (долгосрочная
+ * задержка к текущей) взвешивается по числу запросов и умножается на лимит с запасом sqrt(limit).
+ * Сравнение средних, а не одиночного минимума, не дает одному быстрому запросу (кешированный GET рядом
+ * с BCrypt или пакетным переводом) задать базу для всех остальных. Пока задержка стабильна, градиент
+ * равен 1; когда запросы начинают ждать в очередях (пул соединений, блокировки), текущая задержка
+ * превышает долгосрочную и лимит уменьшается. Лимит не растет, пока сервер загружен меньше чем
+ * наполовину: иначе в простое он бы ушел к максимуму и не защищал от всплеска.
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger windowPeakInFlight = new AtomicInteger();
+    private final AtomicBoolean updating = new AtomicBoolean();
+    private final Map<RequestPriority, LatencyWindow> windows = new EnumMap<>(RequestPriority.class);
+    private final Map<RequestPriority, Counter> rejected = new EnumMap<>(RequestPriority.class);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final int minWindowSamples;
+    private final long windowNanos;
+    private final double longTermWeight;
+
+    private volatile double limit;
+    private volatile long windowStartNanos = System.nanoTime();
+
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry,
+                                      @Value("${concurrency.limit.initial:50}") int initialLimit,
+                                      @Value("${concurrency.limit.min:10}") int minLimit,
+                                      @Value("${concurrency.limit.max:400}") int maxLimit,
+                                      @Value("${concurrency.limit.smoothing:0.2}") double smoothing,
+                                      @Value("${concurrency.limit.windowInMs:1000}") long windowInMs,
+                                      @Value("${concurrency.limit.minWindowSamples:10}") int minWindowSamples,
+                                      @Value("${concurrency.limit.longTermWindows:60}") int longTermWindows) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowInMs);
+        this.minWindowSamples = minWindowSamples;
+        this.longTermWeight = 2.0 / (longTermWindows + 1);
+
+        Gauge.builder("concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("concurrency.inflight", inFlight, AtomicInteger::get)
+                .description("Requests currently being processed")
+                .register(meterRegistry);
+        for (RequestPriority priority : RequestPriority.values()) {
+            windows.put(priority, new LatencyWindow());
+            rejected.put(priority, Counter.builder("concurrency.rejected")
+                    .tag("priority", priority.name())
+                    .description("Requests shed by the concurrency limiter")
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Пытается занять место для запроса с указанным приоритетом.
+     *
+     * @return true, если запрос принят; в этом случае обязательно вызвать {@link #release(RequestPriority, long)}
+     */
+    public boolean tryAcquire(RequestPriority priority) {
+        int allowed = Math.max(1, (int) (limit * priority.getLimitShare()));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                rejected.get(priority).increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowPeakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Освобождает место и учитывает время обработки запроса.
+     *
+     * @param priority     приоритет, с которым запрос был принят
+     * @param latencyNanos время обработки запроса в наносекундах
+     */
+    public void release(RequestPriority priority, long latencyNanos) {
+        inFlight.decrementAndGet();
+        windows.get(priority).add(latencyNanos);
+
+        long now = System.nanoTime();
+        if (now - windowStartNanos >= windowNanos && updating.compareAndSet(false, true)) {
+            try {
+                updateLimit(now);
+            } finally {
+                updating.set(false);
+            }
+        }
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void updateLimit(long now) {
+        long samples = 0;
+        for (LatencyWindow window : windows.values()) {
+            samples += window.count.sum();
+        }
+        if (samples < minWindowSamples) {
+            return;
+        }
+        windowStartNanos = now;
+        int peakInFlight = windowPeakInFlight.getAndSet(inFlight.get());
+
+        double weightedGradient = 0;
+        long weight = 0;
+        for (LatencyWindow window : windows.values()) {
+            long count = window.count.sumThenReset();
+            long latency = window.latencyNanos.sumThenReset();
+            if (count == 0) {
+                continue;
+            }
+            weightedGradient += window.gradient((double) latency / count, longTermWeight) * count;
+            weight += count;
+        }
+        if (weight == 0) {
+            return;
+        }
+
+        double current = limit;
+        double gradient = weightedGradient / weight;
+        double target = current * gradient + Math.sqrt(current);
+        if (target > current && peakInFlight < current / 2) {
+            return;
+        }
+        double next = Math.max(minLimit, Math.min(maxLimit, current * (1 - smoothing) + target * smoothing));
+        limit = next;
+        log.debug("updateLimit[1]: limit {} -> {}, gradient {}, peak in flight {}",
+                (int) current, (int) next, gradient, peakInFlight);
+    }
+
+    /**
+     * Задержки одного приоритета: текущее окно и долгосрочное экспоненциальное среднее средних по окнам.
+     * Обновляется только из {@link #updateLimit(long)} под флагом {@code updating}.
+     */
+    private static final class LatencyWindow {
+
+        private final LongAdder latencyNanos = new LongAdder();
+        private final LongAdder count = new LongAdder();
+        private double longTermNanos = Double.NaN;
+
+        void add(long nanos) {
+            latencyNanos.add(nanos);
+            count.increment();
+        }
+
+        double gradient(double shortTermNanos, double longTermWeight) {
+            if (Double.isNaN(longTermNanos)) {
+                longTermNanos = shortTermNanos;
+            } else {
+                longTermNanos = longTermNanos * (1 - longTermWeight) + shortTermNanos * longTermWeight;
+            }
+            return Math.max(MIN_GRADIENT, Math.min(1.0, longTermNanos / Math.max(1.0, shortTermNanos)));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.security.limit;
+
+/**
+ * Приоритет запроса при ограничении числа одновременно обрабатываемых запросов.
+ * Запросу доступна доля общего лимита: чем ниже приоритет, тем раньше он отклоняется при перегрузке.
+ */
+public enum RequestPriority {
+    CRITICAL(1.0),
+    NORMAL(0.9),
+    LOW(0.5);
+
+    private final double limitShare;
+
+    RequestPriority(double limitShare) {
+        this.limitShare = limitShare;
+    }
+
+    public double getLimitShare() {
+        return limitShare;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bankcards.security.ratelimit;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.TooManyRequestsException;
+import com.example.bankcards.util.Constants;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final UserRateLimiter userRateLimiter;
+    private final RateLimitProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!properties.isEnabled() || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        RateLimited rateLimited = handlerMethod.getMethodAnnotation(RateLimited.class);
+        if (rateLimited == null) {
+            return true;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof User user)) {
+            return true;
+        }
+
+        long waitNanos = userRateLimiter.tryAcquire(rateLimited.value(), user.getId());
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            log.debug("preHandle[1]: rate limit {} exceeded by user: {}", rateLimited.value(), user.getId());
+            throw new TooManyRequestsException(Constants.RATE_LIMIT_EXCEEDED_MSG, retryAfterSeconds);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.bankcards.security.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Максимальное число пользователей, состояние которых хранится для одного бюджета.
+     */
+    private long maxUsers = 100000;
+
+    private Map<String, Budget> budgets = new LinkedHashMap<>();
+
+    @Data
+    public static class Budget {
+
+        /**
+         * Максимальное число запросов подряд.
+         */
+        private int capacity;
+
+        /**
+         * Скорость восполнения бюджета, запросов в секунду.
+         */
+        private double refillPerSecond;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bankcards.security.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Ограничивает частоту вызовов метода контроллера для каждого аутентифицированного пользователя.
+ * Значение - имя бюджета из настроек rate-limit.budgets.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+    String value();
+}
@@ -0,0 +1,95 @@
+package com.example.bankcards.security.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничитель частоты запросов по пользователям в виде маркерной корзины.
+ * Состояние корзины пользователя хранится как одно значение long (теоретическое время следующего запроса,
+ * алгоритм GCRA) и проверяется одной операцией CAS. Состояния хранятся в ограниченном кэше и удаляются
+ * после простоя, за который корзина успевает заполниться полностью, поэтому удаление не меняет бюджет.
+ */
+@Component
+public class UserRateLimiter {
+
+    private final Map<String, Limiter> limiters = new HashMap<>();
+    private final long originNanos = System.nanoTime();
+
+    public UserRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        properties.getBudgets().forEach((name, budget) -> {
+            if (budget.getCapacity() <= 0 || budget.getRefillPerSecond() <= 0) {
+                throw new IllegalArgumentException("Invalid rate limit budget: " + name);
+            }
+            limiters.put(name, new Limiter(name, budget, properties.getMaxUsers(), meterRegistry));
+        });
+    }
+
+    /**
+     * Расходует один запрос из бюджета пользователя.
+     *
+     * @param budget имя бюджета
+     * @param userId идентификатор пользователя
+     * @return 0, если запрос разрешен, иначе время в наносекундах до появления свободного запроса
+     * @throws IllegalArgumentException если бюджет не настроен
+     */
+    public long tryAcquire(String budget, UUID userId) {
+        Limiter limiter = limiters.get(budget);
+        if (limiter == null) {
+            throw new IllegalArgumentException("Unknown rate limit budget: " + budget);
+        }
+        return limiter.tryAcquire(userId, System.nanoTime() - originNanos);
+    }
+
+    static final class Limiter {
+
+        private final Cache<UUID, AtomicLong> theoreticalArrival;
+        private final long emissionIntervalNanos;
+        private final long burstToleranceNanos;
+        private final Counter allowed;
+        private final Counter rejected;
+
+        Limiter(String name, RateLimitProperties.Budget budget, long maxUsers, MeterRegistry meterRegistry) {
+            this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / budget.getRefillPerSecond());
+            this.burstToleranceNanos = emissionIntervalNanos * (budget.getCapacity() - 1);
+            this.theoreticalArrival = Caffeine.newBuilder()
+                    .maximumSize(maxUsers)
+                    .expireAfterAccess(Duration.ofNanos(burstToleranceNanos + emissionIntervalNanos))
+                    .build();
+            this.allowed = Counter.builder("ratelimit.requests")
+                    .tag("budget", name)
+                    .tag("outcome", "allowed")
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("ratelimit.requests")
+                    .tag("budget", name)
+                    .tag("outcome", "rejected")
+                    .register(meterRegistry);
+        }
+
+        long tryAcquire(UUID userId, long now) {
+            AtomicLong state = theoreticalArrival.get(userId, id -> new AtomicLong(Long.MIN_VALUE));
+            while (true) {
+                long tat = state.get();
+                long start = Math.max(tat, now);
+                long wait = start - now - burstToleranceNanos;
+                if (wait > 0) {
+                    rejected.increment();
+                    return wait;
+                }
+                if (state.compareAndSet(tat, start + emissionIntervalNanos)) {
+                    allowed.increment();
+                    return 0;
+                }
+            }
+        }
+    }
+}
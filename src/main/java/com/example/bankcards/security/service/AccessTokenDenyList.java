@@ -0,0 +1,110 @@
+package com.example.bankcards.security.service;
+
+import com.example.bankcards.util.HashUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Список отозванных access токенов по их jti.
+ * Токены группируются в корзины по времени истечения: каждая корзина содержит фильтр Блума
+ * и точное множество jti. Проверка сначала обращается к фильтру, и только при попадании
+ * подтверждается по точному множеству. Корзина удаляется целиком, когда истекают все токены,
+ * которые могли в нее попасть, поэтому память ограничена числом отзывов за время жизни токена.
+ */
+@Service
+@Slf4j
+public class AccessTokenDenyList {
+
+    private static final int HASH_FUNCTIONS = 4;
+
+    private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+    private final long bucketWidthInMs;
+    private final int bitsPerBucket;
+
+    public AccessTokenDenyList(@Value("${security.denyList.bucketWidthInMs:60000}") long bucketWidthInMs,
+                               @Value("${security.denyList.bitsPerBucket:65536}") int bitsPerBucket) {
+        this.bucketWidthInMs = bucketWidthInMs;
+        this.bitsPerBucket = bitsPerBucket;
+    }
+
+    /**
+     * Отзывает access токен до момента его истечения.
+     *
+     * @param jti идентификатор токена
+     * @param expiresAt время истечения токена
+     */
+    public void revoke(String jti, Instant expiresAt) {
+        if (!expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        buckets.computeIfAbsent(bucketOf(expiresAt), index -> new Bucket(bitsPerBucket)).add(jti);
+        log.debug("revoke[1]: access token revoked: {}", jti);
+    }
+
+    /**
+     * Проверяет, отозван ли токен. Не обращается к базе данных.
+     *
+     * @param jti идентификатор токена
+     * @param expiresAt время истечения токена
+     * @return true, если токен отозван
+     */
+    public boolean isRevoked(String jti, Instant expiresAt) {
+        Bucket bucket = buckets.get(bucketOf(expiresAt));
+        return bucket != null && bucket.contains(jti);
+    }
+
+    @Scheduled(fixedDelayString = "${security.denyList.bucketWidthInMs:60000}")
+    public void evictExpiredBuckets() {
+        long current = bucketOf(Instant.now());
+        buckets.keySet().removeIf(index -> index < current);
+    }
+
+    private long bucketOf(Instant expiresAt) {
+        return Math.floorDiv(expiresAt.toEpochMilli(), bucketWidthInMs);
+    }
+
+    private static final class Bucket {
+
+        private final AtomicLongArray bits;
+        private final int size;
+        private final Set<String> revoked = ConcurrentHashMap.newKeySet();
+
+        Bucket(int size) {
+            this.size = size;
+            this.bits = new AtomicLongArray((size + 63) >>> 6);
+        }
+
+        void add(String jti) {
+            revoked.add(jti);
+            long hash = HashUtils.hash64(jti);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                int bit = HashUtils.index(hash, i, size);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long value;
+                do {
+                    value = bits.get(word);
+                } while ((value & mask) == 0 && !bits.compareAndSet(word, value, value | mask));
+            }
+        }
+
+        boolean contains(String jti) {
+            long hash = HashUtils.hash64(jti);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                int bit = HashUtils.index(hash, i, size);
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return revoked.contains(jti);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.bankcards.security.service;
+
+import com.example.bankcards.exception.TooManyRequestsException;
+import com.example.bankcards.util.Constants;
+import com.example.bankcards.util.FrequencySketch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограничивает частоту попыток входа по IP-адресу и по email до проверки пароля.
+ * Частоты оцениваются двумя count-min sketch фиксированного размера, счетчики которых
+ * делятся пополам каждый интервал затухания. Попытка с IP-адреса, превысившего порог, отклоняется
+ * без обращения к базе данных и без вычисления BCrypt. Для email учитываются только неудачные
+ * попытки, а при превышении порога попытка отклоняется с коротким Retry-After, растущим с превышением,
+ * но не больше maxEmailBackoffInMs: так знающий email не может заблокировать вход владельцу на весь
+ * интервал затухания, а поток запроса не занимается ожиданием.
+ * IP-адрес берется из {@code HttpServletRequest#getRemoteAddr()}: за прокси или балансировщиком
+ * нужно включить {@code server.forward-headers-strategy}, иначе все клиенты попадут в один счетчик.
+ */
+@Service
+@Slf4j
+public class LoginThrottle {
+
+    private final FrequencySketch ipSketch;
+    private final FrequencySketch emailSketch;
+    private final int ipThreshold;
+    private final int emailThreshold;
+    private final long retryAfterSeconds;
+    private final long emailBackoffInMs;
+    private final long maxEmailBackoffInMs;
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder rejectedByIp = new LongAdder();
+    private final LongAdder rejectedByEmail = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public LoginThrottle(@Value("${security.loginThrottle.depth:4}") int depth,
+                         @Value("${security.loginThrottle.width:8192}") int width,
+                         @Value("${security.loginThrottle.ipThreshold:100}") int ipThreshold,
+                         @Value("${security.loginThrottle.emailThreshold:10}") int emailThreshold,
+                         @Value("${security.loginThrottle.decayIntervalInMs:60000}") long decayIntervalInMs,
+                         @Value("${security.loginThrottle.emailBackoffInMs:1000}") long emailBackoffInMs,
+                         @Value("${security.loginThrottle.maxEmailBackoffInMs:30000}") long maxEmailBackoffInMs) {
+        this.ipSketch = new FrequencySketch(depth, width);
+        this.emailSketch = new FrequencySketch(depth, width);
+        this.ipThreshold = ipThreshold;
+        this.emailThreshold = emailThreshold;
+        this.retryAfterSeconds = Math.max(1, decayIntervalInMs / 1000);
+        this.emailBackoffInMs = emailBackoffInMs;
+        this.maxEmailBackoffInMs = maxEmailBackoffInMs;
+    }
+
+    /**
+     * Учитывает попытку входа и отклоняет ее, если частота попыток с IP-адреса превышает порог
+     * или число неудачных попыток для email превышает порог. Для email Retry-After растет
+     * пропорционально превышению, но не больше maxEmailBackoffInMs.
+     *
+     * @param ip IP-адрес клиента
+     * @param email email из запроса на вход
+     * @throws TooManyRequestsException если превышен порог для IP-адреса или email
+     */
+    public void acquire(String ip, String email) {
+        attempts.increment();
+        if (ipSketch.increment(ip) > ipThreshold) {
+            rejectedByIp.increment();
+            log.debug("acquire[1]: login attempts from {} exceed threshold", ip);
+            throw new TooManyRequestsException(Constants.TOO_MANY_LOGIN_ATTEMPTS_MSG, retryAfterSeconds);
+        }
+        int excess = emailSketch.estimate(normalize(email)) - emailThreshold;
+        if (excess > 0) {
+            rejectedByEmail.increment();
+            long backoff = Math.min(maxEmailBackoffInMs, emailBackoffInMs * excess);
+            log.debug("acquire[2]: failed logins for {} exceed threshold, retry after {} ms", email, backoff);
+            throw new TooManyRequestsException(Constants.TOO_MANY_LOGIN_ATTEMPTS_MSG,
+                    Math.max(1, (backoff + 999) / 1000));
+        }
+    }
+
+    /**
+     * Учитывает неудачную попытку входа для email.
+     *
+     * @param email email из запроса на вход
+     */
+    public void recordFailure(String email) {
+        failures.increment();
+        emailSketch.increment(normalize(email));
+    }
+
+    @Scheduled(fixedDelayString = "${security.loginThrottle.decayIntervalInMs:60000}")
+    public void decay() {
+        ipSketch.decay();
+        emailSketch.decay();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("depth", ipSketch.getDepth());
+        snapshot.put("width", ipSketch.getWidth());
+        snapshot.put("ipThreshold", ipThreshold);
+        snapshot.put("emailThreshold", emailThreshold);
+        snapshot.put("attempts", attempts.sum());
+        snapshot.put("rejectedByIp", rejectedByIp.sum());
+        snapshot.put("failures", failures.sum());
+        snapshot.put("rejectedByEmail", rejectedByEmail.sum());
+        return snapshot;
+    }
+
+    public Map<String, Object> estimate(String ip, String email) {
+        Map<String, Object> estimate = new LinkedHashMap<>();
+        if (ip != null) {
+            estimate.put("ip", ipSketch.estimate(ip));
+        }
+        if (email != null) {
+            estimate.put("email", emailSketch.estimate(normalize(email)));
+        }
+        return estimate;
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
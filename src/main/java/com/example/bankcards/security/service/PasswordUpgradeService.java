@@ -0,0 +1,33 @@
+package com.example.bankcards.security.service;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Перехеширует пароль при успешном входе, если сохраненный хеш вычислен с устаревшей стоимостью.
+ * Вызывается {@code DaoAuthenticationProvider}, когда {@code PasswordEncoder.upgradeEncoding} возвращает true.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordUpgradeService implements UserDetailsPasswordService {
+
+    private final UserRepository userRepository;
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository.updatePassword(userDetails.getUsername(), newPassword);
+        log.debug("updatePassword[1]: password hash upgraded for user: {}", userDetails.getUsername());
+        if (userDetails instanceof User user) {
+            user.setPassword(newPassword);
+        }
+        return userDetails;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.bankcards.security.service;
+
+import com.example.bankcards.repository.TokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Удаляет из таблицы tokens просроченные и отозванные refresh токены.
+ * Удаление выполняется порциями ограниченного размера, каждая порция в отдельной транзакции,
+ * чтобы не держать длительные блокировки и не раздувать журнал транзакций.
+ */
+@Service
+@Slf4j
+public class TokenPurgeService {
+
+    private final TokenRepository tokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter deletedCounter;
+    private final Timer purgeTimer;
+    private final AtomicLong lastDeleted = new AtomicLong();
+    private final AtomicLong lastRunEpochSeconds = new AtomicLong();
+
+    @Value("${refreshToken.purge.batchSize:1000}")
+    private int batchSize;
+
+    @Value("${refreshToken.purge.maxBatches:100}")
+    private int maxBatches;
+
+    public TokenPurgeService(TokenRepository tokenRepository,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry) {
+        this.tokenRepository = tokenRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.deletedCounter = Counter.builder("tokens.purge.deleted")
+                .description("Refresh tokens deleted by the purge job")
+                .register(meterRegistry);
+        this.purgeTimer = Timer.builder("tokens.purge.duration")
+                .description("Duration of a refresh token purge run")
+                .register(meterRegistry);
+        meterRegistry.gauge("tokens.purge.last.deleted", lastDeleted);
+        meterRegistry.gauge("tokens.purge.last.run", lastRunEpochSeconds);
+    }
+
+    @Scheduled(fixedDelayString = "${refreshToken.purge.intervalInMs:3600000}")
+    public void purge() {
+        purgeTimer.record(() -> {
+            Instant now = Instant.now();
+            long total = 0;
+            for (int batch = 0; batch < maxBatches; batch++) {
+                Integer deleted = transactionTemplate.execute(status ->
+                        tokenRepository.deleteExpiredOrRevokedBatch(now, batchSize));
+                int count = deleted == null ? 0 : deleted;
+                total += count;
+                deletedCounter.increment(count);
+                if (count < batchSize) {
+                    break;
+                }
+            }
+            lastDeleted.set(total);
+            lastRunEpochSeconds.set(now.getEpochSecond());
+            if (total > 0) {
+                log.info("purge[1]: deleted {} expired or revoked refresh tokens", total);
+            }
+        });
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.bankcards.security.service;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.enums.Role;
+import com.example.bankcards.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Кэш состояния пользователей, используемый при аутентификации по JWT.
+ * Позволяет строить principal из claims токена без обращения к базе данных на каждый запрос,
+ * при этом изменения статуса, блокировки, роли и эпохи токенов применяются сразу после инвалидации.
+ * Сброс рассылается остальным узлам через pg_notify, поэтому выход со всех устройств и блокировка
+ * пользователя действуют на всех узлах сразу после коммита, а не по истечении TTL.
+ */
+@Service
+@Slf4j
+public class UserStateService {
+
+    /**
+     * Канал PostgreSQL, через который узлы обмениваются сбросами состояния пользователей.
+     */
+    public static final String CHANNEL = "user_state_invalidation";
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<UUID, Optional<UserState>> states;
+
+    public UserStateService(UserRepository userRepository,
+                            JdbcTemplate jdbcTemplate,
+                            @Value("${security.userState.cacheSize:10000}") long cacheSize,
+                            @Value("${security.userState.ttlInMs:300000}") long ttlInMs) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.states = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMillis(ttlInMs))
+                .build();
+    }
+
+    /**
+     * Возвращает актуальное состояние пользователя, загружая его из базы данных при промахе кэша.
+     *
+     * @param userId идентификатор пользователя
+     * @return состояние пользователя или пустой Optional, если пользователь не существует
+     */
+    public Optional<UserState> getState(UUID userId) {
+        return states.get(userId, id -> {
+            log.debug("getState[1]: loading state for user: {}", id);
+            return userRepository.findById(id).map(UserState::of);
+        });
+    }
+
+    /**
+     * Удаляет состояние пользователя из кэша и рассылает сброс остальным узлам. Если вызов выполняется
+     * внутри транзакции, запись удаляется повторно после коммита, чтобы конкурентное чтение не вернуло
+     * в кэш старые данные, а уведомление доставляется только при фиксации транзакции.
+     *
+     * @param userId идентификатор пользователя
+     */
+    public void evict(UUID userId) {
+        states.invalidate(userId);
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, CHANNEL, userId.toString());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    states.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Применяет сброс, полученный из канала {@link #CHANNEL}.
+     *
+     * @param payload идентификатор пользователя
+     */
+    public void onNotification(String payload) {
+        try {
+            states.invalidate(UUID.fromString(payload));
+        } catch (IllegalArgumentException e) {
+            log.warn("onNotification[1]: malformed payload: {}", payload);
+        }
+    }
+
+    /**
+     * Сбрасывает весь кэш. Используется, когда уведомления могли быть потеряны.
+     */
+    public void invalidateAll() {
+        states.invalidateAll();
+    }
+
+    public record UserState(String email, Role role, boolean enabled, boolean accountNonLocked, int tokenEpoch) {
+
+        static UserState of(User user) {
+            return new UserState(user.getEmail(), user.getRole(), user.isEnabled(), user.isAccountNonLocked(),
+                    user.getTokenEpoch());
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.example.bankcards.dto.auth.RegisterRequest;
 import com.example.bankcards.dto.card.BalanceUpdateRequest;
 import com.example.bankcards.dto.card.CardCreateRequest;
 import com.example.bankcards.dto.card.CardDto;
+import com.example.bankcards.dto.common.CursorPage;
 import com.example.bankcards.dto.user.UserDto;
 import com.example.bankcards.dto.user.UserUpdateRequest;
 import com.example.bankcards.entity.enums.CardStatus;
@@ -28,6 +29,25 @@ public interface AdminService {
      */
     Page<CardDto> getAllCards(Pageable pageable);
 
+    /**
+     * Получает порцию банковских карт, следующих за курсором, в порядке идентификаторов.
+     * Использует поиск по индексу первичного ключа без OFFSET и без подсчета общего количества.
+     *
+     * @param cursor непрозрачный курсор из предыдущего ответа или null для первой порции
+     * @param size размер порции
+     * @return порция DTO банковских карт с курсором следующей порции
+     */
+    CursorPage<CardDto> getCardsAfter(String cursor, int size);
+
+    /**
+     * Находит банковскую карту по полному номеру через слепой индекс, не расшифровывая номера карт.
+     *
+     * @param cardNumber полный номер карты
+     * @return DTO найденной карты
+     * @throws com.example.bankcards.exception.ResourceNotFoundException если карта не найдена
+     */
+    CardDto findCardByNumber(String cardNumber);
+
     /**
      * Обновляет баланс банковской карты.
      *
@@ -37,6 +57,19 @@ public interface AdminService {
      */
     CardDto updateCardBalance(BalanceUpdateRequest request);
 
+    /**
+     * Изменяет количество слотов распределенного баланса карты.
+     * Текущие слоты сворачиваются в баланс карты, после чего создаются новые пустые слоты.
+     * Значение 0 отключает распределенный баланс.
+     *
+     * @param cardId идентификатор карты
+     * @param slots новое количество слотов
+     * @return DTO обновленной банковской карты
+     * @throws com.example.bankcards.exception.ResourceNotFoundException если карта не найдена
+     * @throws com.example.bankcards.exception.InvalidCardOperationException если количество слотов вне допустимого диапазона
+     */
+    CardDto updateCardStriping(UUID cardId, int slots);
+
     /**
      * Создает нового пользователя в системе.
      *
@@ -54,6 +87,16 @@ public interface AdminService {
      */
     Page<UserDto> getAllUsers(Pageable pageable);
 
+    /**
+     * Получает порцию пользователей, следующих за курсором, в порядке идентификаторов.
+     * Использует поиск по индексу первичного ключа без OFFSET и без подсчета общего количества.
+     *
+     * @param cursor непрозрачный курсор из предыдущего ответа или null для первой порции
+     * @param size размер порции
+     * @return порция DTO пользователей с курсором следующей порции
+     */
+    CursorPage<UserDto> getUsersAfter(String cursor, int size);
+
     /**
      * Получает пользователя по его идентификатору.
      *
@@ -3,9 +3,12 @@ package com.example.bankcards.service;
 import com.example.bankcards.dto.auth.AuthRequest;
 import com.example.bankcards.dto.auth.AuthResponse;
 import com.example.bankcards.dto.auth.RegisterRequest;
+import com.example.bankcards.entity.User;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import java.util.UUID;
+
 /**
  * Сервис для аутентификации и авторизации пользователей.
  * Предоставляет методы для регистрации, входа, обновления токенов и выхода из системы.
@@ -26,13 +29,16 @@ public interface AuthService {
     /**
      * Выполняет аутентификацию пользователя в системе.
      * Проверяет учетные данные и генерирует JWT токены при успешной аутентификации.
+     * Попытки входа с частотой выше порога по IP-адресу или email отклоняются до проверки пароля.
      *
      * @param authRequest запрос на аутентификацию, содержащий email и пароль
+     * @param request HTTP запрос для определения IP-адреса клиента
      * @param response HTTP ответ для установки cookies с токенами
      * @return ответ аутентификации, содержащий информацию о пользователе и JWT токены
      * @throws com.example.bankcards.exception.ResourceNotFoundException если пользователь не найден
+     * @throws com.example.bankcards.exception.TooManyRequestsException если превышена частота попыток входа
      */
-    AuthResponse login(AuthRequest authRequest, HttpServletResponse response);
+    AuthResponse login(AuthRequest authRequest, HttpServletRequest request, HttpServletResponse response);
 
     /**
      * Обновляет JWT токены доступа на основе refresh токена.
@@ -48,10 +54,30 @@ public interface AuthService {
 
     /**
      * Выполняет выход пользователя из системы.
-     * Удаляет JWT токены из cookies и добавляет refresh токен в черный список.
+     * Удаляет JWT токены из cookies, добавляет refresh токен в черный список
+     * и отзывает access токен из заголовка Authorization до истечения его срока действия.
      *
      * @param request HTTP запрос для получения информации о пользователе и токенах
      * @param response HTTP ответ для удаления cookies с токенами
      */
     void logout(HttpServletRequest request, HttpServletResponse response);
+
+    /**
+     * Выполняет выход пользователя на всех устройствах.
+     * Отзывает все refresh токены пользователя и увеличивает эпоху токенов,
+     * после чего все ранее выданные access токены перестают приниматься.
+     *
+     * @param user текущий пользователь
+     * @param request HTTP запрос для получения текущего access токена
+     * @param response HTTP ответ для удаления cookies с токенами
+     */
+    void logoutAll(User user, HttpServletRequest request, HttpServletResponse response);
+
+    /**
+     * Отзывает все сессии пользователя одним UPDATE по таблице токенов и увеличивает эпоху токенов.
+     *
+     * @param userId идентификатор пользователя
+     * @throws com.example.bankcards.exception.ResourceNotFoundException если пользователь не найден
+     */
+    void revokeAllSessions(UUID userId);
 }
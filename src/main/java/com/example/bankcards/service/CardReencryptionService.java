@@ -0,0 +1,27 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.encryption.ReencryptionStatus;
+
+/**
+ * Сервис перешифрования номеров карт при ротации ключа данных.
+ */
+public interface CardReencryptionService {
+
+    /**
+     * Создает новый ключ данных и запускает фоновое перешифрование номеров всех карт этим ключом.
+     * Карты обрабатываются порциями в отдельных коротких транзакциях, параллельно с обычной нагрузкой.
+     * Другие узлы переходят на новый ключ в течение encryption.dataKey.activeKeyRefreshInMs, поэтому
+     * по истечении этого интервала выполняется повторный проход, перешифровывающий записанные ими карты.
+     * Если перешифрование уже выполняется, новый запуск не производится.
+     *
+     * @return состояние перешифрования
+     */
+    ReencryptionStatus start();
+
+    /**
+     * Возвращает состояние последнего запуска перешифрования.
+     *
+     * @return состояние перешифрования
+     */
+    ReencryptionStatus getStatus();
+}
@@ -3,6 +3,8 @@ package com.example.bankcards.service;
 import com.example.bankcards.dto.card.BalanceResponse;
 import com.example.bankcards.dto.card.CardCreateRequest;
 import com.example.bankcards.dto.card.CardDto;
+import com.example.bankcards.dto.common.SlicePage;
+import com.example.bankcards.dto.common.TotalMode;
 import com.example.bankcards.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -38,6 +40,19 @@ public interface CardService {
      */
     Page<CardDto> getUserCards(User user, Pageable pageable, String search);
 
+    /**
+     * Получает порцию карт пользователя без подсчета общего количества.
+     * Наличие следующей порции определяется выборкой одной дополнительной записи.
+     * Приблизительное общее количество берется из кэша и доступно только без поискового запроса.
+     *
+     * @param user текущий пользователь
+     * @param pageable параметры пагинации и сортировки
+     * @param search поисковый запрос (последние 4 цифры или имя владельца)
+     * @param totalMode требуется ли приблизительное общее количество карт
+     * @return порция DTO карт пользователя
+     */
+    SlicePage<CardDto> getUserCardsSlice(User user, Pageable pageable, String search, TotalMode totalMode);
+
     /**
      * Получает конкретную карту по идентификатору.
      * Проверяет, что карта принадлежит указанному пользователю.
@@ -96,11 +111,13 @@ public interface CardService {
 
     /**
      * Получает агрегированную информацию о балансах всех карт пользователя.
-     * Включает общий баланс, балансы по отдельным картам и статистику по картам.
+     * Общий баланс и статистика по картам вычисляются одним агрегирующим запросом по всем картам,
+     * балансы по отдельным картам возвращаются постранично и только по запросу.
      *
      * @param user текущий пользователь
-     * @param pageable параметры пагинации для списка карт
+     * @param pageable параметры пагинации для списка балансов по картам
+     * @param includeCards true - включить в ответ балансы карт текущей страницы
      * @return ответ с информацией о балансах
      */
-    BalanceResponse getUserBalance(User user, Pageable pageable);
+    BalanceResponse getUserBalance(User user, Pageable pageable, boolean includeCards);
 }
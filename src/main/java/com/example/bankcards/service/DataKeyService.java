@@ -0,0 +1,37 @@
+package com.example.bankcards.service;
+
+import javax.crypto.SecretKey;
+import java.util.UUID;
+
+/**
+ * Сервис ключей данных для конвертного шифрования номеров карт.
+ * Ключи данных хранятся зашифрованными мастер-ключом, расшифрованные ключи кэшируются в памяти.
+ */
+public interface DataKeyService {
+
+    /**
+     * Возвращает текущий ключ данных для шифрования. Если ключей еще нет, создает первый.
+     *
+     * @return идентификатор и материал текущего ключа данных
+     */
+    DataKeyMaterial getActiveKey();
+
+    /**
+     * Возвращает расшифрованный ключ данных по идентификатору.
+     *
+     * @param keyId идентификатор ключа данных
+     * @return материал ключа
+     * @throws IllegalStateException если ключ с таким идентификатором не найден
+     */
+    SecretKey getKey(UUID keyId);
+
+    /**
+     * Создает новый ключ данных и делает его текущим для последующих операций шифрования.
+     *
+     * @return идентификатор нового ключа данных
+     */
+    UUID rotate();
+
+    record DataKeyMaterial(UUID id, SecretKey key) {
+    }
+}
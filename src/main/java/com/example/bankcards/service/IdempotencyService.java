@@ -0,0 +1,29 @@
+package com.example.bankcards.service;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Сервис идемпотентного выполнения операций, изменяющих балансы.
+ * Сохраняет результат операции под ключом клиента, и повторный запрос с тем же ключом
+ * получает сохраненный ответ без повторного выполнения операции.
+ */
+public interface IdempotencyService {
+
+    /**
+     * Выполняет операцию не более одного раза для пары (пользователь, ключ идемпотентности).
+     * Запись ключа, операция и ответ фиксируются одной транзакцией, поэтому операция должна присоединяться
+     * к текущей транзакции. Конкурентный повтор с тем же ключом ждет ее фиксации и получает сохраненный ответ;
+     * если операция завершилась исключением, ничего не фиксируется и запрос можно повторить.
+     *
+     * @param key значение заголовка Idempotency-Key; если null, операция выполняется без сохранения
+     * @param userId идентификатор пользователя, которому принадлежит ключ
+     * @param operation имя операции, входит в отпечаток запроса
+     * @param request тело запроса, входит в отпечаток запроса
+     * @param responseType тип ответа для восстановления сохраненного результата
+     * @param action выполняемая операция
+     * @return результат операции или сохраненный результат предыдущего выполнения
+     * @throws com.example.bankcards.exception.ApiException если ключ уже использован с другим запросом
+     */
+    <T> T execute(String key, UUID userId, String operation, Object request, Class<T> responseType, Supplier<T> action);
+}
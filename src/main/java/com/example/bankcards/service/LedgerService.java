@@ -0,0 +1,57 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.dto.ledger.LedgerEntryDto;
+import com.example.bankcards.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Сервис журнала операций по картам.
+ * Записывает проводки по двойной записи для каждого изменения баланса и предоставляет историю операций.
+ * Баланс в таблице карт является проекцией журнала и изменяется в той же транзакции, что и проводки.
+ */
+public interface LedgerService {
+
+    /**
+     * Записывает проводки перевода между картами: дебет карты-отправителя и кредит карты-получателя.
+     * Должен вызываться внутри транзакции, изменяющей балансы карт.
+     *
+     * @param fromCardId идентификатор карты-отправителя
+     * @param toCardId идентификатор карты-получателя
+     * @param amount сумма перевода
+     */
+    void recordTransfer(UUID fromCardId, UUID toCardId, BigDecimal amount);
+
+    /**
+     * Записывает проводки нескольких переводов одним пакетом.
+     * Должен вызываться внутри транзакции, изменяющей балансы карт.
+     *
+     * @param transfers выполненные переводы
+     */
+    void recordTransfers(List<TransferRequest> transfers);
+
+    /**
+     * Записывает проводки корректировки баланса карты против системного счета банка.
+     * Должен вызываться внутри транзакции, изменяющей баланс карты. Нулевая разница не записывается.
+     *
+     * @param cardId идентификатор карты
+     * @param delta изменение баланса (положительное - зачисление, отрицательное - списание)
+     */
+    void recordAdjustment(UUID cardId, BigDecimal delta);
+
+    /**
+     * Получает историю операций по карте пользователя, начиная с последних.
+     *
+     * @param cardId идентификатор карты
+     * @param user текущий пользователь
+     * @param pageable параметры пагинации
+     * @return страница с проводками по карте
+     * @throws com.example.bankcards.exception.ResourceNotFoundException если карта не найдена или не принадлежит пользователю
+     */
+    Page<LedgerEntryDto> getCardHistory(UUID cardId, User user, Pageable pageable);
+}
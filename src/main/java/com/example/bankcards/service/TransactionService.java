@@ -1,8 +1,11 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.card.BatchTransferResponse;
+import com.example.bankcards.dto.card.TransferRequest;
 import com.example.bankcards.entity.User;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -28,4 +31,16 @@ public interface TransactionService {
      *         - попытка перевода на ту же карту
      */
     void transferBetweenOwnCards(UUID fromCardId, UUID toCardId, BigDecimal amount, User user);
+
+    /**
+     * Выполняет пакет переводов между картами одного пользователя в одной транзакции.
+     * В атомарном режиме ошибка любого перевода откатывает весь пакет; иначе каждый перевод
+     * выполняется в собственной точке сохранения и ошибки не влияют на остальные переводы.
+     *
+     * @param transfers список переводов в порядке выполнения
+     * @param atomic true - все или ничего, false - независимое выполнение каждого перевода
+     * @param user пользователь, выполняющий операцию
+     * @return результаты выполнения по каждому переводу
+     */
+    BatchTransferResponse transferBatch(List<TransferRequest> transfers, boolean atomic, User user);
 }
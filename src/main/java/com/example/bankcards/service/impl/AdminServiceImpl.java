@@ -3,9 +3,11 @@ package com.example.bankcards.service.impl;
 import com.example.bankcards.dto.auth.RegisterRequest;
 import com.example.bankcards.dto.card.BalanceUpdateRequest;
 import com.example.bankcards.dto.card.CardDto;
+import com.example.bankcards.dto.common.CursorPage;
 import com.example.bankcards.dto.user.UserDto;
 import com.example.bankcards.dto.user.UserUpdateRequest;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardBalanceSlot;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.enums.CardStatus;
 import com.example.bankcards.entity.enums.Role;
@@ -13,14 +15,21 @@ import com.example.bankcards.exception.EmailAlreadyExistsException;
 import com.example.bankcards.exception.InvalidCardOperationException;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.exception.UserAlreadyExistsException;
+import com.example.bankcards.repository.CardBalanceSlotRepository;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardView;
+import com.example.bankcards.security.service.UserStateService;
 import com.example.bankcards.service.AdminService;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.util.CardNumberHasher;
 import com.example.bankcards.util.Constants;
+import com.example.bankcards.util.CursorUtils;
 import com.example.bankcards.util.mappers.CardMapper;
 import com.example.bankcards.util.mappers.UserMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.encrypt.TextEncryptor;
@@ -28,6 +37,9 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -46,6 +58,11 @@ public class AdminServiceImpl implements AdminService {
     private final PasswordEncoder passwordEncoder;
     private final CardMapper cardMapper;
     private final UserMapper userMapper;
+    private final UserStateService userStateService;
+    private final LedgerService ledgerService;
+    private final CardBalanceSlotRepository cardBalanceSlotRepository;
+    private final CardNumberHasher cardNumberHasher;
+    private final CardNearCache cardNearCache;
 
     /**
      * {@inheritDoc}
@@ -55,10 +72,39 @@ public class AdminServiceImpl implements AdminService {
     public Page<CardDto> getAllCards(Pageable pageable) {
         log.debug("getAllCards[1]: pageable={}", pageable);
 
-        return cardRepository.findAll(pageable)
+        return cardRepository.findAllProjectedBy(pageable)
                 .map(cardMapper::mapToCardResponse);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<CardDto> getCardsAfter(String cursor, int size) {
+        log.debug("getCardsAfter[1]: cursor={}, size={}", cursor, size);
+        int pageSize = normalizePageSize(size);
+        UUID after = CursorUtils.decode(cursor);
+
+        List<CardView> cards = after == null
+                ? cardRepository.findAllByOrderByIdAsc(Limit.of(pageSize + 1))
+                : cardRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageSize + 1));
+
+        return CursorUtils.toPage(cards, pageSize, CardView::getId, cardMapper::mapToCardResponse);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CardDto findCardByNumber(String cardNumber) {
+        CardView card = cardRepository.findViewByCardNumberHash(cardNumberHasher.hash(cardNumber))
+                .orElseThrow(() -> new ResourceNotFoundException(Constants.CARD_RESOURCE));
+        log.debug("findCardByNumber[1]: found card: {}", card.getId());
+        return cardMapper.mapToCardResponse(card);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -66,16 +112,28 @@ public class AdminServiceImpl implements AdminService {
     public CardDto updateCardBalance(BalanceUpdateRequest request) {
         log.debug("updateCardBalance[1]: Updating balance for card: {}", request.getCardId());
 
-        Card card = cardRepository.findById(request.getCardId())
+        Card card = cardRepository.findByIdForUpdate(request.getCardId())
                 .orElseThrow(() -> new ResourceNotFoundException(Constants.CARD_RESOURCE));
 
         if (card.getStatus() != CardStatus.ACTIVE) {
             throw new InvalidCardOperationException(Constants.CANNOT_UPDATE_INACTIVE_CARD_BALANCE);
         }
 
+        BigDecimal currentBalance = card.getBalance();
+        if (card.getBalanceSlots() > 0) {
+            for (CardBalanceSlot slot : cardBalanceSlotRepository.findByCardIdForUpdate(card.getId())) {
+                currentBalance = currentBalance.add(slot.getBalance());
+                slot.setBalance(BigDecimal.ZERO);
+            }
+        }
+
+        BigDecimal delta = request.getAmount().subtract(currentBalance);
         card.setBalance(request.getAmount());
+        card.setStripedBalance(BigDecimal.ZERO);
 
         Card updatedCard = cardRepository.save(card);
+        ledgerService.recordAdjustment(updatedCard.getId(), delta);
+        cardNearCache.evict(updatedCard.getUser().getId());
 
         log.info("updateCardBalance[1]: Balance updated for card {}: new balance = {}",
                 request.getCardId(), request.getAmount());
@@ -83,6 +141,45 @@ public class AdminServiceImpl implements AdminService {
         return cardMapper.mapToCardResponse(updatedCard);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CardDto updateCardStriping(UUID cardId, int slots) {
+        log.debug("updateCardStriping[1]: card: {}, slots: {}", cardId, slots);
+        if (slots < 0 || slots > Constants.MAX_BALANCE_SLOTS) {
+            throw new InvalidCardOperationException(Constants.INVALID_BALANCE_SLOTS);
+        }
+
+        Card card = cardRepository.findByIdForUpdate(cardId)
+                .orElseThrow(() -> new ResourceNotFoundException(Constants.CARD_RESOURCE));
+
+        BigDecimal balance = card.getBalance();
+        for (CardBalanceSlot slot : cardBalanceSlotRepository.findByCardIdForUpdate(cardId)) {
+            balance = balance.add(slot.getBalance());
+        }
+        cardBalanceSlotRepository.deleteByCardId(cardId);
+
+        List<CardBalanceSlot> newSlots = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++) {
+            newSlots.add(CardBalanceSlot.builder()
+                    .cardId(cardId)
+                    .slot(i)
+                    .balance(BigDecimal.ZERO)
+                    .build());
+        }
+        cardBalanceSlotRepository.saveAll(newSlots);
+
+        card.setBalance(balance);
+        card.setBalanceSlots(slots);
+        card.setStripedBalance(BigDecimal.ZERO);
+        Card updatedCard = cardRepository.save(card);
+        cardNearCache.evict(updatedCard.getUser().getId());
+
+        log.info("updateCardStriping[2]: card {} now uses {} balance slots", cardId, slots);
+        return cardMapper.mapToCardResponse(updatedCard);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -118,6 +215,23 @@ public class AdminServiceImpl implements AdminService {
                 .map(userMapper::userToUserDto);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserDto> getUsersAfter(String cursor, int size) {
+        log.debug("getUsersAfter[1]: cursor={}, size={}", cursor, size);
+        int pageSize = normalizePageSize(size);
+        UUID after = CursorUtils.decode(cursor);
+
+        List<User> users = after == null
+                ? userRepository.findAllByOrderByIdAsc(Limit.of(pageSize + 1))
+                : userRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageSize + 1));
+
+        return CursorUtils.toPage(users, pageSize, User::getId, userMapper::userToUserDto);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -139,6 +253,7 @@ public class AdminServiceImpl implements AdminService {
 
         user.setEnabled(enabled);
         user = userRepository.save(user);
+        userStateService.evict(userId);
 
         return userMapper.userToUserDto(user);
     }
@@ -153,6 +268,7 @@ public class AdminServiceImpl implements AdminService {
 
         user.setAccountNonLocked(accountNonLocked);
         user = userRepository.save(user);
+        userStateService.evict(userId);
 
         return userMapper.userToUserDto(user);
     }
@@ -191,6 +307,7 @@ public class AdminServiceImpl implements AdminService {
         existedUser.setPassword(currentPassword);
 
         User updatedUser = userRepository.save(existedUser);
+        userStateService.evict(userId);
         return userMapper.userToUserDto(updatedUser);
     }
 
@@ -205,5 +322,11 @@ public class AdminServiceImpl implements AdminService {
                 .orElseThrow(() -> new ResourceNotFoundException(Constants.USER_RESOURCE));
 
         userRepository.delete(user);
+        userStateService.evict(userId);
+        cardNearCache.evict(userId);
+    }
+
+    private int normalizePageSize(int size) {
+        return Math.max(1, Math.min(size, Constants.MAX_CURSOR_PAGE_SIZE));
     }
 }
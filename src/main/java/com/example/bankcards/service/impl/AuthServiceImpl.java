@@ -13,11 +13,17 @@ import com.example.bankcards.exception.UserAlreadyExistsException;
 import com.example.bankcards.repository.TokenRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.AuthService;
+import com.example.bankcards.security.service.AccessTokenDenyList;
 import com.example.bankcards.security.service.JwtService;
+import com.example.bankcards.security.service.LoginThrottle;
+import com.example.bankcards.security.service.UserStateService;
 import com.example.bankcards.util.Constants;
 import com.example.bankcards.util.CookieUtil;
+import com.example.bankcards.util.HashUtils;
 import com.example.bankcards.util.mappers.UserMapper;
 import com.example.bankcards.util.parser.JwtParser;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -25,11 +31,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Реализация сервиса для аутентификации и авторизации пользователей.
@@ -46,6 +56,9 @@ public class AuthServiceImpl implements AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final JwtParser jwtParser;
+    private final AccessTokenDenyList accessTokenDenyList;
+    private final UserStateService userStateService;
+    private final LoginThrottle loginThrottle;
     private final UserMapper userMapper;
 
     @Value("${refreshToken.expirationInMs}")
@@ -72,32 +85,47 @@ public class AuthServiceImpl implements AuthService {
                 .accountNonLocked(true)
                 .build();
 
-        userRepository.save(user);
+        User savedUser = userRepository.save(user);
 
-        return authenticateInternal(registerRequest.getEmail(), registerRequest.getPassword(), response);
+        return issueTokens(savedUser, response);
     }
 
     /**
      * {@inheritDoc}
      */
-    public AuthResponse login(AuthRequest request, HttpServletResponse response) {
-        return authenticateInternal(request.getEmail(), request.getPassword(), response);
+    public AuthResponse login(AuthRequest authRequest, HttpServletRequest request, HttpServletResponse response) {
+        loginThrottle.acquire(request.getRemoteAddr(), authRequest.getEmail());
+        try {
+            return authenticateInternal(authRequest.getEmail(), authRequest.getPassword(), response);
+        } catch (AuthenticationException e) {
+            loginThrottle.recordFailure(authRequest.getEmail());
+            throw e;
+        }
     }
 
     private AuthResponse authenticateInternal(String email, String password, HttpServletResponse response) {
         log.debug("authenticateInternal[1]: authenticate user with email: {}", email);
         var authToken = new UsernamePasswordAuthenticationToken(email, password);
-        authManager.authenticate(authToken);
+        Authentication authentication = authManager.authenticate(authToken);
+
+        User user = authentication.getPrincipal() instanceof User principal
+                ? principal
+                : userRepository.findByEmail(email)
+                        .orElseThrow(() -> new ResourceNotFoundException(Constants.USER_RESOURCE));
 
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException(Constants.USER_RESOURCE));
+        return issueTokens(user, response);
+    }
 
-        var claims = Map.<String ,Object>of(Constants.ROLE_CLAIM, user.getRole().name());
+    private AuthResponse issueTokens(User user, HttpServletResponse response) {
+        var claims = Map.<String ,Object>of(
+                Constants.ROLE_CLAIM, user.getRole().name(),
+                Constants.USER_ID_CLAIM, user.getId().toString(),
+                Constants.TOKEN_EPOCH_CLAIM, user.getTokenEpoch());
         String accessToken = jwtService.generateAccessToken(user.getEmail(), claims);
         String refreshTokenStr = jwtService.generateRefreshToken(user.getEmail(), claims);
 
         Token refreshToken = Token.builder()
-                .token(refreshTokenStr)
+                .tokenHash(HashUtils.sha256Hex(refreshTokenStr))
                 .type(TokenType.REFRESH)
                 .user(user)
                 .revoked(false)
@@ -105,7 +133,7 @@ public class AuthServiceImpl implements AuthService {
                 .expiresAt(Instant.now().plusMillis(refreshTokenExpiryMs))
                 .build();
         tokenRepository.save(refreshToken);
-        log.debug("authenticateInternal[2]: refresh token was saved: {}", refreshTokenStr);
+        log.debug("issueTokens[1]: refresh token was saved: {}", refreshToken.getId());
 
         CookieUtil.makeRefreshCookie(response, refreshTokenStr, (int) (refreshTokenExpiryMs / 1000));
         return AuthResponse.builder()
@@ -122,22 +150,30 @@ public class AuthServiceImpl implements AuthService {
     public AuthResponse refreshToken(HttpServletRequest request, HttpServletResponse response) {
         log.debug("refreshToken[1]: Refresh tokens");
         String refreshCookie = CookieUtil.extractRefreshTokenFromCookie(request);
-        log.debug("refreshToken[2]: refresh cookie: {}", refreshCookie);
         if (refreshCookie == null) {
             throw new RefreshTokenMissingException(Constants.REFRESH_TOKEN_MISSING);
         }
 
-        var tokenOpt = tokenRepository.findByToken(refreshCookie);
+        var tokenOpt = tokenRepository.findByTokenHash(HashUtils.sha256Hex(refreshCookie));
         if (tokenOpt.isEmpty()) throw new RefreshTokenMissingException(Constants.REFRESH_TOKEN_MISSING);
 
         var stored = tokenOpt.get();
+        log.debug("refreshToken[2]: refresh token: {}", stored.getId());
         if (stored.isRevoked() || stored.isExpired() || jwtParser.isTokenExpired(refreshCookie)) {
             throw new IllegalArgumentException(Constants.INVALID_REFRESH_TOKEN_MSG);
         }
 
         var user = stored.getUser();
         log.debug("refreshToken[3]: user: {}", user);
-        Map<String, Object> extraClaims = Map.of(Constants.ROLE_CLAIM, user.getRole().name());
+        Integer tokenEpoch = jwtParser.parseClaims(refreshCookie).get(Constants.TOKEN_EPOCH_CLAIM, Integer.class);
+        if ((tokenEpoch == null ? 0 : tokenEpoch) < user.getTokenEpoch()) {
+            log.debug("refreshToken[4]: refresh token predates logout from all devices: {}", stored.getId());
+            throw new IllegalArgumentException(Constants.INVALID_REFRESH_TOKEN_MSG);
+        }
+        Map<String, Object> extraClaims = Map.of(
+                Constants.ROLE_CLAIM, user.getRole().name(),
+                Constants.USER_ID_CLAIM, user.getId().toString(),
+                Constants.TOKEN_EPOCH_CLAIM, user.getTokenEpoch());
 
         stored.setRevoked(true);
         stored.setExpired(true);
@@ -147,7 +183,7 @@ public class AuthServiceImpl implements AuthService {
         String newRefresh = jwtService.generateRefreshToken(user.getEmail(), extraClaims);
 
         Token newRefreshToken = Token.builder()
-                .token(newRefresh)
+                .tokenHash(HashUtils.sha256Hex(newRefresh))
                 .type(TokenType.REFRESH)
                 .user(user)
                 .revoked(false)
@@ -171,14 +207,56 @@ public class AuthServiceImpl implements AuthService {
     public void logout(HttpServletRequest request, HttpServletResponse response) {
         log.debug("logout[1]: Logout");
         String refreshCookie = CookieUtil.extractRefreshTokenFromCookie(request);
-        log.debug("logout[1]: refresh cookie: {}", refreshCookie);
         if (refreshCookie != null) {
-            tokenRepository.findByToken(refreshCookie).ifPresent(t -> {
+            tokenRepository.findByTokenHash(HashUtils.sha256Hex(refreshCookie)).ifPresent(t -> {
+                log.debug("logout[2]: revoking refresh token: {}", t.getId());
                 t.setRevoked(true);
                 t.setExpired(true);
                 tokenRepository.save(t);
             });
         }
+        revokeAccessToken(request);
+        CookieUtil.clearRefreshCookie(response);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void logoutAll(User user, HttpServletRequest request, HttpServletResponse response) {
+        log.debug("logoutAll[1]: Logout from all devices, user: {}", user.getId());
+        revokeAllSessions(user.getId());
+        revokeAccessToken(request);
         CookieUtil.clearRefreshCookie(response);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void revokeAllSessions(UUID userId) {
+        if (userRepository.incrementTokenEpoch(userId) == 0) {
+            throw new ResourceNotFoundException(Constants.USER_RESOURCE);
+        }
+        int revoked = tokenRepository.revokeAllByUserId(userId);
+        userStateService.evict(userId);
+        log.info("revokeAllSessions[1]: revoked {} refresh tokens of user: {}", revoked, userId);
+    }
+
+    private void revokeAccessToken(HttpServletRequest request) {
+        String authHeader = request.getHeader(Constants.AUTHORIZATION_HEADER_NAME);
+        if (authHeader == null || !authHeader.startsWith(Constants.BEARER_PREFIX)) {
+            return;
+        }
+        try {
+            Claims claims = jwtParser.parseClaims(authHeader.substring(Constants.BEARER_PREFIX.length()));
+            if (claims.getId() != null) {
+                accessTokenDenyList.revoke(claims.getId(), claims.getExpiration().toInstant());
+            }
+        } catch (JwtException e) {
+            log.debug("revokeAccessToken[1]: access token is not valid: {}", e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.security.service.UserStateService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Принимает сбросы локальных кэшей от других узлов через LISTEN на каналах {@link CardNearCache#CHANNEL}
+ * и {@link UserStateService#CHANNEL}. Для прослушивания открывается отдельное соединение вне пула.
+ * После разрыва соединения кэши сбрасываются целиком, так как уведомления за время разрыва потеряны.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationListener {
+
+    private final CardNearCache cardNearCache;
+    private final UserStateService userStateService;
+    private final DataSourceProperties dataSourceProperties;
+    private final Thread thread;
+
+    @Value("${cards.nearCache.listenPollInMs:500}")
+    private int pollInMs;
+
+    @Value("${cards.nearCache.reconnectDelayInMs:5000}")
+    private long reconnectDelayInMs;
+
+    public CacheInvalidationListener(CardNearCache cardNearCache,
+                                     UserStateService userStateService,
+                                     DataSourceProperties dataSourceProperties) {
+        this.cardNearCache = cardNearCache;
+        this.userStateService = userStateService;
+        this.dataSourceProperties = dataSourceProperties;
+        this.thread = new Thread(this::listen, "cache-invalidation-listener");
+        this.thread.setDaemon(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        thread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        thread.interrupt();
+    }
+
+    private void listen() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CardNearCache.CHANNEL);
+                    statement.execute("LISTEN " + UserStateService.CHANNEL);
+                }
+                invalidateAll();
+                log.info("listen[1]: listening for cache invalidations");
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (!Thread.currentThread().isInterrupted()) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollInMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                log.warn("listen[2]: listener connection lost, retrying in {} ms: {}", reconnectDelayInMs, e.getMessage());
+                invalidateAll();
+                try {
+                    Thread.sleep(reconnectDelayInMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void dispatch(PGNotification notification) {
+        if (UserStateService.CHANNEL.equals(notification.getName())) {
+            userStateService.onNotification(notification.getParameter());
+        } else {
+            cardNearCache.onNotification(notification.getParameter());
+        }
+    }
+
+    private void invalidateAll() {
+        cardNearCache.invalidateAll();
+        userStateService.invalidateAll();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.repository.CardRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Кэш количества карт пользователя для постраничного вывода без COUNT-запроса.
+ * Значение считается приблизительным: оно сбрасывается при создании и удалении карт
+ * через сервис и в любом случае устаревает по истечении TTL.
+ */
+@Component
+@Slf4j
+public class CardCountCache {
+
+    private final CardRepository cardRepository;
+    private final Cache<UUID, Long> counts;
+
+    public CardCountCache(CardRepository cardRepository,
+                          @Value("${cards.count.cacheSize:10000}") long cacheSize,
+                          @Value("${cards.count.ttlInMs:60000}") long ttlInMs) {
+        this.cardRepository = cardRepository;
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMillis(ttlInMs))
+                .build();
+    }
+
+    public long getCount(UUID userId) {
+        return counts.get(userId, id -> {
+            log.debug("getCount[1]: counting cards for user: {}", id);
+            return cardRepository.countByUserId(id);
+        });
+    }
+
+    public void evict(UUID userId) {
+        counts.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counts.invalidate(userId);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.CardDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Локальный кэш карт, балансов и первых страниц списка карт пользователя.
+ * Данные хранятся в записи пользователя, поэтому любое изменение его карт сбрасывает запись целиком.
+ * Сброс выполняется после коммита транзакции, а на другие узлы передается через pg_notify.
+ * Уведомления ставятся в очередь после коммита и отправляются фоновым потоком пачками на отдельном
+ * соединении: NOTIFY не удлиняет транзакцию перевода, а время в уведомлении отсчитывается от коммита.
+ * Если уведомление потеряно (сбой узла после коммита, переполнение очереди), другие узлы увидят
+ * изменение не позже чем через TTL записи.
+ * Значение, прочитанное до сброса, сохраняется в уже удаленную запись и в кэш не попадает.
+ */
+@Component
+@Slf4j
+public class CardNearCache {
+
+    /**
+     * Канал PostgreSQL, через который узлы обмениваются сбросами кэша.
+     */
+    public static final String CHANNEL = "card_cache_invalidation";
+
+    private static final String NODE_ID = UUID.randomUUID().toString();
+    private static final int PUBLISH_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<String> pending;
+    private final Thread publisher;
+    private final Cache<UUID, UserCards> users;
+    private final int maxPagesPerUser;
+    private final Map<String, Counter> requests = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Timer staleness;
+
+    public CardNearCache(JdbcTemplate jdbcTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${cards.nearCache.cacheSize:10000}") long cacheSize,
+                         @Value("${cards.nearCache.ttlInMs:30000}") long ttlInMs,
+                         @Value("${cards.nearCache.maxPagesPerUser:16}") int maxPagesPerUser,
+                         @Value("${cards.nearCache.maxPendingNotifications:10000}") int maxPendingNotifications) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pending = new LinkedBlockingQueue<>(maxPendingNotifications);
+        this.publisher = new Thread(this::publish, "card-cache-publisher");
+        this.publisher.setDaemon(true);
+        this.meterRegistry = meterRegistry;
+        this.maxPagesPerUser = maxPagesPerUser;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMillis(ttlInMs))
+                .build();
+        this.staleness = Timer.builder("cards.cache.staleness")
+                .description("Delay between a commit on another node and the local cache invalidation, "
+                        + "including clock skew between the nodes")
+                .register(meterRegistry);
+    }
+
+    public CardDto getCard(UUID userId, UUID cardId, Supplier<CardDto> loader) {
+        return lookup("card", users.get(userId, id -> new UserCards()).cards, cardId, loader);
+    }
+
+    public BigDecimal getBalance(UUID userId, UUID cardId, Supplier<BigDecimal> loader) {
+        return lookup("balance", users.get(userId, id -> new UserCards()).balances, cardId, loader);
+    }
+
+    /**
+     * Возвращает страницу списка карт без поиска. Число страниц в записи пользователя ограничено,
+     * страницы сверх лимита читаются из базы данных без кэширования.
+     */
+    public Page<CardDto> getPage(UUID userId, Pageable pageable, Supplier<Page<CardDto>> loader) {
+        UserCards entry = users.get(userId, id -> new UserCards());
+        if (!entry.pages.containsKey(pageable) && entry.pages.size() >= maxPagesPerUser) {
+            counter("page", "bypass").increment();
+            return loader.get();
+        }
+        return lookup("page", entry.pages, pageable, loader);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        publisher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publisher.interrupt();
+    }
+
+    /**
+     * Сбрасывает кэш карт пользователя на этом узле и рассылает сброс остальным узлам.
+     * Внутри транзакции запись сбрасывается повторно после коммита, и только тогда
+     * ставится в очередь уведомление для других узлов.
+     *
+     * @param userId идентификатор владельца измененных карт
+     */
+    public void evict(UUID userId) {
+        users.invalidate(userId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                users.invalidate(userId);
+                enqueue(userId);
+            }
+        });
+    }
+
+    /**
+     * Применяет сброс, полученный из канала {@link #CHANNEL}. Собственные уведомления узла игнорируются.
+     *
+     * @param payload строка вида {@code <узел>:<пользователь>:<время коммита в мс по часам узла>}
+     */
+    void onNotification(String payload) {
+        String[] parts = payload.split(":");
+        if (parts.length != 3) {
+            log.warn("onNotification[1]: malformed payload: {}", payload);
+            return;
+        }
+        if (NODE_ID.equals(parts[0])) {
+            return;
+        }
+
+        try {
+            users.invalidate(UUID.fromString(parts[1]));
+            long delay = System.currentTimeMillis() - Long.parseLong(parts[2]);
+            staleness.record(Math.max(delay, 0), TimeUnit.MILLISECONDS);
+        } catch (IllegalArgumentException e) {
+            log.warn("onNotification[2]: malformed payload: {}", payload);
+        }
+    }
+
+    /**
+     * Сбрасывает весь кэш. Используется, когда уведомления могли быть потеряны.
+     */
+    void invalidateAll() {
+        users.invalidateAll();
+    }
+
+    private void enqueue(UUID userId) {
+        if (!pending.offer(NODE_ID + ":" + userId + ":" + System.currentTimeMillis())) {
+            log.warn("enqueue[1]: notification queue is full, other nodes will see user {} after TTL", userId);
+        }
+    }
+
+    /**
+     * Отправляет накопившиеся уведомления одним запросом на соединении из пула.
+     * Поток не держит другого соединения, поэтому не может исчерпать пул.
+     */
+    private void publish() {
+        List<String> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(pending.take());
+                pending.drainTo(batch, PUBLISH_BATCH_SIZE - 1);
+                jdbcTemplate.queryForList("SELECT pg_notify(?, payload) FROM unnest(?) AS payload",
+                        CHANNEL, batch.toArray(new String[0]));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (DataAccessException e) {
+                log.warn("publish[1]: {} cache notifications were not sent: {}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private <K, V> V lookup(String region, Map<K, V> values, K key, Supplier<V> loader) {
+        V value = values.get(key);
+        if (value != null) {
+            counter(region, "hit").increment();
+            return value;
+        }
+
+        counter(region, "miss").increment();
+        value = loader.get();
+        values.put(key, value);
+        return value;
+    }
+
+    private Counter counter(String region, String result) {
+        return requests.computeIfAbsent(region + ":" + result, key -> Counter.builder("cards.cache.requests")
+                .tag("region", region)
+                .tag("result", result)
+                .description("Card near-cache lookups")
+                .register(meterRegistry));
+    }
+
+    private static final class UserCards {
+        private final Map<UUID, CardDto> cards = new ConcurrentHashMap<>();
+        private final Map<UUID, BigDecimal> balances = new ConcurrentHashMap<>();
+        private final Map<Pageable, Page<CardDto>> pages = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.exception.InvalidCardOperationException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.CardNumberUtils;
+import com.example.bankcards.util.Constants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Выдает номера карт вида BIN + номер счета + контрольная цифра Луна.
+ * Номера счетов берутся блоками из последовательности card_number_block_seq (схема hi/lo):
+ * значение последовательности задает старшую часть, младшая часть выдается из памяти,
+ * поэтому обращение к базе данных требуется только раз на блок.
+ * Порядковый номер переводится в номер счета взаимно однозначным аффинным преобразованием,
+ * чтобы соседние карты не получали соседние номера; уникальность при этом сохраняется.
+ */
+@Component
+@Slf4j
+public class CardNumberAllocator {
+
+    private static final int ACCOUNT_DIGITS = Constants.CARD_NUMBER_LENGTH - Constants.BIN_LENGTH - 1;
+    private static final long ACCOUNT_SPACE = (long) Math.pow(10, ACCOUNT_DIGITS);
+    /**
+     * Множитель взаимно прост с 10^9 (не делится на 2 и 5), поэтому преобразование обратимо.
+     */
+    private static final long PERMUTATION_MULTIPLIER = 738_219_461L;
+    private static final long PERMUTATION_OFFSET = 104_729L;
+
+    private final CardRepository cardRepository;
+    private final List<String> bins;
+    private final int blockSize;
+    private volatile Block block = Block.EMPTY;
+
+    public CardNumberAllocator(CardRepository cardRepository,
+                               @Value("${cards.numbers.bins:400000}") Set<String> bins,
+                               @Value("${cards.numbers.blockSize:1000}") int blockSize) {
+        for (String bin : bins) {
+            if (!bin.matches("\\d{" + Constants.BIN_LENGTH + "}")) {
+                throw new IllegalArgumentException("Invalid BIN in configuration: " + bin);
+            }
+        }
+        this.cardRepository = cardRepository;
+        this.bins = List.copyOf(new LinkedHashSet<>(bins));
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Выделяет новый номер карты.
+     *
+     * @param bin BIN карты или null для BIN по умолчанию из конфигурации
+     * @return 16-значный номер карты с корректной контрольной цифрой
+     * @throws InvalidCardOperationException если BIN не обслуживается
+     */
+    public String allocate(String bin) {
+        String issuerBin = resolveBin(bin);
+        long account = permute(nextSequenceValue());
+
+        StringBuilder number = new StringBuilder(Constants.CARD_NUMBER_LENGTH)
+                .append(issuerBin);
+        String accountDigits = Long.toString(account);
+        number.append("0".repeat(ACCOUNT_DIGITS - accountDigits.length())).append(accountDigits);
+        number.append(CardNumberUtils.luhnCheckDigit(number));
+        return number.toString();
+    }
+
+    private String resolveBin(String bin) {
+        if (bin == null) {
+            return bins.size() == 1 ? bins.get(0) : bins.get(ThreadLocalRandom.current().nextInt(bins.size()));
+        }
+        if (!bins.contains(bin)) {
+            throw new InvalidCardOperationException(Constants.UNSUPPORTED_BIN);
+        }
+        return bin;
+    }
+
+    private long nextSequenceValue() {
+        while (true) {
+            Block current = block;
+            int lo = current.next.getAndIncrement();
+            if (lo < current.size) {
+                return current.base + lo;
+            }
+            synchronized (this) {
+                if (block == current) {
+                    block = reserveBlock();
+                }
+            }
+        }
+    }
+
+    private Block reserveBlock() {
+        long hi = cardRepository.nextCardNumberBlock();
+        long base = hi * blockSize;
+        if (base + blockSize > ACCOUNT_SPACE) {
+            throw new IllegalStateException("Card number space is exhausted");
+        }
+        log.debug("reserveBlock[1]: reserved card number block: {}", hi);
+        return new Block(base, blockSize);
+    }
+
+    private static long permute(long value) {
+        return Math.floorMod(value * PERMUTATION_MULTIPLIER + PERMUTATION_OFFSET, ACCOUNT_SPACE);
+    }
+
+    private static final class Block {
+
+        static final Block EMPTY = new Block(0, 0);
+
+        final long base;
+        final int size;
+        final AtomicInteger next = new AtomicInteger();
+
+        Block(long base, int size) {
+            this.base = base;
+            this.size = size;
+        }
+    }
+}
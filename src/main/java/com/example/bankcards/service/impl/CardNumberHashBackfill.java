@@ -0,0 +1,151 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.CardCipherView;
+import com.example.bankcards.util.CardNumberHasher;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Заполняет слепой индекс номера для карт, созданных до его появления.
+ * Карты обходятся порциями по возрастанию идентификатора, каждая порция сохраняется в отдельной транзакции.
+ * Карты, номер которых не удалось расшифровать, пропускаются и остаются без индекса.
+ * При старте заполнение запускается в фоновом потоке, чтобы не задерживать готовность узла,
+ * и выполняется только на узле, получившем сессионную advisory-блокировку; остальные узлы его пропускают.
+ */
+@Component
+@Slf4j
+public class CardNumberHashBackfill {
+
+    /**
+     * Ключ advisory-блокировки заполнения ("cardhash" в ASCII).
+     */
+    private static final long ADVISORY_LOCK_KEY = 0x6361726468617368L;
+
+    private final CardRepository cardRepository;
+    private final TextEncryptor textEncryptor;
+    private final CardNumberHasher cardNumberHasher;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService executor;
+
+    @Value("${cards.blindIndex.backfillOnStartup:true}")
+    private boolean backfillOnStartup;
+
+    @Value("${cards.blindIndex.batchSize:500}")
+    private int batchSize;
+
+    public CardNumberHashBackfill(CardRepository cardRepository,
+                                  TextEncryptor textEncryptor,
+                                  CardNumberHasher cardNumberHasher,
+                                  TransactionTemplate transactionTemplate,
+                                  JdbcTemplate jdbcTemplate) {
+        this.cardRepository = cardRepository;
+        this.textEncryptor = textEncryptor;
+        this.cardNumberHasher = cardNumberHasher;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "card-number-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (backfillOnStartup) {
+            executor.execute(this::backfillIfLeader);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Выполняет заполнение, удерживая advisory-блокировку на отдельном соединении.
+     * Если блокировку держит другой узел, заполнение пропускается.
+     */
+    private void backfillIfLeader() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!callAdvisoryLock(connection, "pg_try_advisory_lock")) {
+                    log.info("backfillIfLeader[1]: card number hashes are being filled by another node");
+                    return null;
+                }
+                try {
+                    backfill();
+                } finally {
+                    callAdvisoryLock(connection, "pg_advisory_unlock");
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("backfillIfLeader[2]: card number hash backfill failed", e);
+        }
+    }
+
+    private static boolean callAdvisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " + function + "(?)")) {
+            statement.setLong(1, ADVISORY_LOCK_KEY);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    public void backfill() {
+        UUID after = null;
+        int updated = 0;
+        int failed = 0;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            List<CardCipherView> cards = after == null
+                    ? cardRepository.findByCardNumberHashIsNullOrderByIdAsc(Limit.of(batchSize))
+                    : cardRepository.findByCardNumberHashIsNullAndIdGreaterThanOrderByIdAsc(after, Limit.of(batchSize));
+            if (cards.isEmpty()) {
+                break;
+            }
+
+            int[] batch = new int[2];
+            transactionTemplate.executeWithoutResult(status -> {
+                for (CardCipherView card : cards) {
+                    String hash;
+                    try {
+                        hash = cardNumberHasher.hash(textEncryptor.decrypt(card.getCardNumber()));
+                    } catch (RuntimeException e) {
+                        log.warn("backfill[1]: cannot decrypt number of card: {}", card.getId(), e);
+                        batch[1]++;
+                        continue;
+                    }
+                    batch[0] += cardRepository.updateCardNumberHash(card.getId(), hash);
+                }
+            });
+            updated += batch[0];
+            failed += batch[1];
+            after = cards.get(cards.size() - 1).getId();
+        }
+
+        log.info("backfill[2]: card number hashes filled: {}, skipped: {}", updated, failed);
+    }
+}
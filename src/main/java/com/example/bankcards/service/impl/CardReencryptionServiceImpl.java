@@ -0,0 +1,184 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.encryption.ReencryptionStatus;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.CardCipherView;
+import com.example.bankcards.service.CardReencryptionService;
+import com.example.bankcards.service.DataKeyService;
+import com.example.bankcards.util.crypto.EnvelopeTextEncryptor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Реализация перешифрования номеров карт. Карты обходятся по возрастанию идентификатора порциями
+ * фиксированного размера, в памяти одновременно находится только одна порция. Номер перезаписывается
+ * условным UPDATE, только если шифртекст не изменился с момента чтения, поэтому конкурентные
+ * изменения карты не теряются.
+ */
+@Service
+@Slf4j
+public class CardReencryptionServiceImpl implements CardReencryptionService {
+
+    private final CardRepository cardRepository;
+    private final DataKeyService dataKeyService;
+    private final TextEncryptor textEncryptor;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong rewritten = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile UUID keyId;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    @Value("${encryption.reencryption.batchSize:500}")
+    private int batchSize;
+
+    @Value("${encryption.reencryption.pauseInMs:0}")
+    private long pauseInMs;
+
+    @Value("${encryption.dataKey.activeKeyRefreshInMs:60000}")
+    private long activeKeyRefreshInMs;
+
+    public CardReencryptionServiceImpl(CardRepository cardRepository,
+                                       DataKeyService dataKeyService,
+                                       TextEncryptor textEncryptor,
+                                       TransactionTemplate transactionTemplate) {
+        this.cardRepository = cardRepository;
+        this.dataKeyService = dataKeyService;
+        this.textEncryptor = textEncryptor;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "card-reencryption");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReencryptionStatus start() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("start[1]: re-encryption is already running");
+            return getStatus();
+        }
+
+        try {
+            keyId = dataKeyService.rotate();
+            processed.set(0);
+            rewritten.set(0);
+            failed.set(0);
+            startedAt = Instant.now();
+            finishedAt = null;
+            executor.execute(() -> reencryptAll(keyId));
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return getStatus();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReencryptionStatus getStatus() {
+        return ReencryptionStatus.builder()
+                .running(running.get())
+                .keyId(keyId)
+                .processed(processed.get())
+                .rewritten(rewritten.get())
+                .failed(failed.get())
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void reencryptAll(UUID targetKeyId) {
+        String targetPrefix = EnvelopeTextEncryptor.prefixOf(targetKeyId);
+        try {
+            reencryptPass(targetPrefix);
+            // Другие узлы продолжают шифровать прежним ключом, пока не обновят активный ключ,
+            // поэтому после этого интервала карты, записанные ими в это время, перешифровываются повторным проходом.
+            Thread.sleep(activeKeyRefreshInMs);
+            int remaining = reencryptPass(targetPrefix);
+            log.info("reencryptAll[1]: re-encryption finished, processed: {}, rewritten: {}, failed: {}, " +
+                    "rewritten on rescan: {}", processed.get(), rewritten.get(), failed.get(), remaining);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("reencryptAll[2]: re-encryption interrupted after {} cards", processed.get());
+        } catch (RuntimeException e) {
+            log.error("reencryptAll[3]: re-encryption stopped after {} cards", processed.get(), e);
+        } finally {
+            finishedAt = Instant.now();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Обходит все карты и перешифровывает номера, зашифрованные не целевым ключом.
+     *
+     * @return число перезаписанных номеров
+     */
+    private int reencryptPass(String targetPrefix) throws InterruptedException {
+        long rewrittenBefore = rewritten.get();
+        UUID after = null;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<CardCipherView> cards = after == null
+                    ? cardRepository.findCiphersByOrderByIdAsc(Limit.of(batchSize))
+                    : cardRepository.findCiphersByIdGreaterThanOrderByIdAsc(after, Limit.of(batchSize));
+            if (cards.isEmpty()) {
+                break;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                for (CardCipherView card : cards) {
+                    if (!card.getCardNumber().startsWith(targetPrefix)) {
+                        reencrypt(card);
+                    }
+                }
+            });
+            processed.addAndGet(cards.size());
+            after = cards.get(cards.size() - 1).getId();
+
+            if (pauseInMs > 0) {
+                Thread.sleep(pauseInMs);
+            }
+        }
+        return (int) (rewritten.get() - rewrittenBefore);
+    }
+
+    private void reencrypt(CardCipherView card) {
+        String reencrypted;
+        try {
+            reencrypted = textEncryptor.encrypt(textEncryptor.decrypt(card.getCardNumber()));
+        } catch (RuntimeException e) {
+            log.warn("reencrypt[1]: cannot re-encrypt number of card: {}", card.getId(), e);
+            failed.incrementAndGet();
+            return;
+        }
+        rewritten.addAndGet(cardRepository.replaceCardNumber(card.getId(), card.getCardNumber(), reencrypted));
+    }
+}
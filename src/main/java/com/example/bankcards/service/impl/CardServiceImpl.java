@@ -3,6 +3,8 @@ package com.example.bankcards.service.impl;
 import com.example.bankcards.dto.card.BalanceResponse;
 import com.example.bankcards.dto.card.CardCreateRequest;
 import com.example.bankcards.dto.card.CardDto;
+import com.example.bankcards.dto.common.SlicePage;
+import com.example.bankcards.dto.common.TotalMode;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.enums.CardStatus;
@@ -10,14 +12,18 @@ import com.example.bankcards.exception.InvalidCardOperationException;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardBalanceSummary;
+import com.example.bankcards.repository.projection.CardBalanceView;
+import com.example.bankcards.repository.projection.CardView;
 import com.example.bankcards.service.CardService;
-import com.example.bankcards.util.CardNumberUtils;
+import com.example.bankcards.util.CardNumberHasher;
 import com.example.bankcards.util.Constants;
 import com.example.bankcards.util.mappers.CardMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.crypto.encrypt.TextEncryptor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -38,6 +44,10 @@ public class CardServiceImpl implements CardService {
     private final UserRepository userRepository;
     private final TextEncryptor textEncryptor;
     private final CardMapper cardMapper;
+    private final CardCountCache cardCountCache;
+    private final CardNearCache cardNearCache;
+    private final CardNumberHasher cardNumberHasher;
+    private final CardNumberAllocator cardNumberAllocator;
 
     /**
      * {@inheritDoc}
@@ -47,7 +57,20 @@ public class CardServiceImpl implements CardService {
         log.debug("createCard[1]: creating card: {}", cardCreateRequest);
         User cardOwner = userRepository.findById(cardCreateRequest.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException(Constants.USER_RESOURCE));
-        String cardNumber = CardNumberUtils.generateCardNumber();
+        String cardNumber = null;
+        String cardNumberHash = null;
+        for (int attempt = 0; attempt < Constants.CARD_NUMBER_GENERATION_ATTEMPTS; attempt++) {
+            String candidate = cardNumberAllocator.allocate(cardCreateRequest.getBin());
+            String candidateHash = cardNumberHasher.hash(candidate);
+            if (!cardRepository.existsByCardNumberHash(candidateHash)) {
+                cardNumber = candidate;
+                cardNumberHash = candidateHash;
+                break;
+            }
+        }
+        if (cardNumber == null) {
+            throw new IllegalStateException("Unable to generate unique card number");
+        }
 
         String lastFourDigits = cardNumber.substring(cardNumber.length() - 4);
         log.debug("createCard[2]: last four digits: {}", lastFourDigits);
@@ -56,6 +79,7 @@ public class CardServiceImpl implements CardService {
         Card card = Card.builder()
                 .cardOwner(cardCreateRequest.getCardOwner())
                 .cardNumber(encryptedNumber)
+                .cardNumberHash(cardNumberHash)
                 .lastFourDigits(lastFourDigits)
                 .expiryDate(cardCreateRequest.getExpiryDate())
                 .status(CardStatus.ACTIVE)
@@ -63,7 +87,10 @@ public class CardServiceImpl implements CardService {
                 .user(cardOwner)
                 .build();
 
-        return cardMapper.cardToCardDto(cardRepository.save(card));
+        Card savedCard = cardRepository.save(card);
+        cardCountCache.evict(cardOwner.getId());
+        cardNearCache.evict(cardOwner.getId());
+        return cardMapper.cardToCardDto(savedCard);
     }
 
     /**
@@ -72,7 +99,7 @@ public class CardServiceImpl implements CardService {
     @Override
     public Page<CardDto> getUserCards(User user, Pageable pageable, String search) {
         log.debug("getUserCards[1]: Searching user cards");
-        Page<Card> cards;
+        Page<CardView> cards;
 
         if (search != null && !search.trim().isEmpty()) {
             String searchTerm = search.trim();
@@ -80,23 +107,60 @@ public class CardServiceImpl implements CardService {
             if (searchTerm.matches("\\d{4}")) {
                 cards = cardRepository.findByUserAndLastFourDigits(user, searchTerm, pageable);
             } else {
-                cards = cardRepository.findByUserAndCardOwnerContainingIgnoreCase(user, searchTerm, pageable);
+                cards = cardRepository.searchByUser(user, toContainsPattern(searchTerm), pageable);
             }
         } else {
-            cards = cardRepository.findByUser(user, pageable);
+            return cardNearCache.getPage(user.getId(), pageable,
+                    () -> cardRepository.findByUser(user, pageable).map(cardMapper::mapToCardResponse));
         }
         log.debug("getUserCards[3]: cards: {}", cards);
         return cards.map(cardMapper::mapToCardResponse);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public SlicePage<CardDto> getUserCardsSlice(User user, Pageable pageable, String search, TotalMode totalMode) {
+        log.debug("getUserCardsSlice[1]: Searching user cards, total mode: {}", totalMode);
+        Slice<CardView> cards;
+        Long approximateTotal = null;
+
+        if (search != null && !search.trim().isEmpty()) {
+            String searchTerm = search.trim();
+            log.debug("getUserCardsSlice[2]: Search term: {}", searchTerm);
+            if (searchTerm.matches("\\d{4}")) {
+                cards = cardRepository.findSliceByUserAndLastFourDigits(user, searchTerm, pageable);
+            } else {
+                cards = cardRepository.searchSliceByUser(user, toContainsPattern(searchTerm), pageable);
+            }
+        } else {
+            cards = cardRepository.findSliceByUser(user, pageable);
+            if (totalMode == TotalMode.APPROXIMATE) {
+                approximateTotal = cardCountCache.getCount(user.getId());
+            }
+        }
+
+        return SlicePage.<CardDto>builder()
+                .content(cards.map(cardMapper::mapToCardResponse).getContent())
+                .page(cards.getNumber())
+                .size(cards.getSize())
+                .hasNext(cards.hasNext())
+                .approximateTotal(approximateTotal)
+                .build();
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public CardDto getCardById(UUID cardId, User user) {
-        Card card = cardRepository.findByIdAndUser(cardId, user).orElseThrow(
-                () -> new ResourceNotFoundException(Constants.CARD_RESOURCE));
-        return cardMapper.mapToCardResponse(card);
+        return cardNearCache.getCard(user.getId(), cardId, () -> {
+            CardView card = cardRepository.findViewByIdAndUser(cardId, user).orElseThrow(
+                    () -> new ResourceNotFoundException(Constants.CARD_RESOURCE));
+            return cardMapper.mapToCardResponse(card);
+        });
     }
 
     /**
@@ -119,6 +183,7 @@ public class CardServiceImpl implements CardService {
         }
 
         card.setStatus(CardStatus.BLOCKED);
+        cardNearCache.evict(user.getId());
         return cardMapper.cardToCardDto(cardRepository.save(card));
     }
 
@@ -142,6 +207,7 @@ public class CardServiceImpl implements CardService {
         }
 
         card.setStatus(CardStatus.ACTIVE);
+        cardNearCache.evict(user.getId());
         return cardMapper.cardToCardDto(cardRepository.save(card));
     }
 
@@ -156,6 +222,16 @@ public class CardServiceImpl implements CardService {
                 .orElseThrow(() -> new ResourceNotFoundException(Constants.CARD_RESOURCE));
 
         cardRepository.delete(card);
+        cardCountCache.evict(card.getUser().getId());
+        cardNearCache.evict(card.getUser().getId());
+    }
+
+    private static String toContainsPattern(String searchTerm) {
+        String escaped = searchTerm.toLowerCase(Locale.ROOT)
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return "%" + escaped + "%";
     }
 
     private String getDecryptedCardNumber(UUID cardId) {
@@ -171,45 +247,45 @@ public class CardServiceImpl implements CardService {
      * {@inheritDoc}
      */
     @Override
-    @Transactional
     public BigDecimal getCardBalance(UUID cardId, User user) {
         log.debug("getCardBalance[1]: Getting balance for card: {}, user: {}", cardId, user.getEmail());
 
-        Card card = cardRepository.findByIdAndUser(cardId, user)
-                .orElseThrow(() -> new ResourceNotFoundException(Constants.CARD_RESOURCE));
-
-        log.debug("getCardBalance[2]: Card balance: {}", card.getBalance());
-        return card.getBalance();
+        return cardNearCache.getBalance(user.getId(), cardId, () -> {
+            CardView card = cardRepository.findViewByIdAndUser(cardId, user)
+                    .orElseThrow(() -> new ResourceNotFoundException(Constants.CARD_RESOURCE));
+            BigDecimal balance = card.getStripedBalance() == null
+                    ? card.getBalance()
+                    : card.getBalance().add(card.getStripedBalance());
+            log.debug("getCardBalance[2]: Card balance: {}", balance);
+            return balance;
+        });
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    @Transactional
-    public BalanceResponse getUserBalance(User user, Pageable pageable) {
+    @Transactional(readOnly = true)
+    public BalanceResponse getUserBalance(User user, Pageable pageable, boolean includeCards) {
         log.debug("getUserBalance[1]: Getting balance for user: {}", user.getEmail());
 
-        Page<Card> userCards = cardRepository.findByUser(user, pageable);
-
-        BigDecimal totalBalance = BigDecimal.ZERO;
-        Map<UUID, BigDecimal> cardBalances = new HashMap<>();
-        int activeCardsCount = 0;
-
-        for (Card card : userCards) {
-            cardBalances.put(card.getId(), card.getBalance());
-            totalBalance = totalBalance.add(card.getBalance());
+        CardBalanceSummary summary = cardRepository.summarizeBalancesByUserId(user.getId());
 
-            if (card.getStatus() == CardStatus.ACTIVE) {
-                activeCardsCount++;
+        Map<UUID, BigDecimal> cardBalances = null;
+        if (includeCards) {
+            cardBalances = new LinkedHashMap<>();
+            for (CardBalanceView card : cardRepository.findBalancesByUser(user, pageable)) {
+                cardBalances.put(card.getId(), card.getStripedBalance() == null
+                        ? card.getBalance()
+                        : card.getBalance().add(card.getStripedBalance()));
             }
         }
 
         BalanceResponse response = BalanceResponse.builder()
-                .totalBalance(totalBalance)
+                .totalBalance(summary.getTotalBalance())
                 .cardBalances(cardBalances)
-                .totalCards((int) userCards.getTotalElements())
-                .activeCards(activeCardsCount)
+                .totalCards((int) summary.getTotalCards())
+                .activeCards((int) summary.getActiveCards())
                 .build();
 
         log.debug("getUserBalance[2]: Balance response: {}", response);
@@ -0,0 +1,138 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.entity.DataKey;
+import com.example.bankcards.repository.DataKeyRepository;
+import com.example.bankcards.service.DataKeyService;
+import com.example.bankcards.util.crypto.AesGcmTextEncryptor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Реализация сервиса ключей данных. Ключи данных шифруются мастер-шифратором, производным от
+ * encryption.password и encryption.salt, поэтому смена мастер-ключа требует перешифрования
+ * только строк таблицы data_keys. Текущий ключ перечитывается из базы данных с заданным интервалом,
+ * чтобы все узлы переходили на новый ключ после ротации.
+ */
+@Service
+@Slf4j
+public class DataKeyServiceImpl implements DataKeyService {
+
+    private static final int DATA_KEY_LENGTH_BITS = 256;
+
+    private final DataKeyRepository dataKeyRepository;
+    private final AesGcmTextEncryptor masterKeyEncryptor;
+    private final TransactionTemplate newTransaction;
+    private final Cache<UUID, SecretKey> keys;
+    private final long activeKeyRefreshInMs;
+
+    private volatile DataKeyMaterial activeKey;
+    private volatile long activeKeyLoadedAt;
+
+    public DataKeyServiceImpl(DataKeyRepository dataKeyRepository,
+                              AesGcmTextEncryptor masterKeyEncryptor,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${encryption.dataKey.cacheSize:1000}") long cacheSize,
+                              @Value("${encryption.dataKey.activeKeyRefreshInMs:60000}") long activeKeyRefreshInMs) {
+        this.dataKeyRepository = dataKeyRepository;
+        this.masterKeyEncryptor = masterKeyEncryptor;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.keys = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+        this.activeKeyRefreshInMs = activeKeyRefreshInMs;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataKeyMaterial getActiveKey() {
+        DataKeyMaterial current = activeKey;
+        if (current != null && System.currentTimeMillis() - activeKeyLoadedAt < activeKeyRefreshInMs) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (activeKey != current) {
+                return activeKey;
+            }
+            DataKeyMaterial latest = newTransaction.execute(status -> dataKeyRepository.findFirstByOrderByCreatedAtDesc()
+                    .map(dataKey -> new DataKeyMaterial(dataKey.getId(), getKey(dataKey.getId())))
+                    .orElseGet(this::createKey));
+            activate(latest);
+            return latest;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SecretKey getKey(UUID keyId) {
+        return keys.get(keyId, id -> {
+            log.debug("getKey[1]: unwrapping data key: {}", id);
+            DataKey dataKey = dataKeyRepository.findById(id)
+                    .orElseThrow(() -> new IllegalStateException("Unknown data key: " + id));
+            return unwrap(dataKey.getWrappedKey());
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized UUID rotate() {
+        DataKeyMaterial created = createKey();
+        activate(created);
+        log.info("rotate[1]: data key rotated, new key: {}", created.id());
+        return created.id();
+    }
+
+    /**
+     * Создает ключ данных в отдельной транзакции, чтобы откат вызывающей транзакции
+     * не удалил ключ, которым уже зашифрованы значения.
+     */
+    private DataKeyMaterial createKey() {
+        SecretKey key = generateKey();
+        DataKey dataKey = newTransaction.execute(status -> dataKeyRepository.save(DataKey.builder()
+                .wrappedKey(masterKeyEncryptor.encrypt(Base64.getEncoder().encodeToString(key.getEncoded())))
+                .createdAt(Instant.now())
+                .build()));
+        keys.put(dataKey.getId(), key);
+        return new DataKeyMaterial(dataKey.getId(), key);
+    }
+
+    private void activate(DataKeyMaterial dataKey) {
+        activeKey = dataKey;
+        activeKeyLoadedAt = System.currentTimeMillis();
+    }
+
+    private SecretKey unwrap(String wrappedKey) {
+        return new SecretKeySpec(Base64.getDecoder().decode(masterKeyEncryptor.decrypt(wrappedKey)), "AES");
+    }
+
+    private static SecretKey generateKey() {
+        try {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(DATA_KEY_LENGTH_BITS);
+            return generator.generateKey();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
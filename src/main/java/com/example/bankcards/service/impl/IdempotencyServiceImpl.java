@@ -0,0 +1,156 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.entity.IdempotencyRecord;
+import com.example.bankcards.exception.ApiException;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import com.example.bankcards.service.IdempotencyService;
+import com.example.bankcards.util.Constants;
+import com.example.bankcards.util.HashUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Реализация сервиса идемпотентного выполнения операций.
+ * Запись ключа, операция и сохранение ответа выполняются одной транзакцией, которая при конфликте
+ * блокировок повторяется целиком: ключ фиксируется только вместе с изменением балансов и ответом,
+ * поэтому после сбоя либо сохранен и ответ, и результат операции, либо нет ни того, ни другого.
+ * Ключи хранятся в таблице idempotency_keys, а недавно использованные ключи дополнительно
+ * кэшируются в памяти, чтобы повторы отвечались без обращения к базе данных.
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionRetryExecutor transactionRetryExecutor;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Cache<String, IdempotencyRecord> records;
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  TransactionRetryExecutor transactionRetryExecutor,
+                                  ObjectMapper objectMapper,
+                                  @Value("${idempotency.ttlInMs:86400000}") long ttlInMs,
+                                  @Value("${idempotency.cacheSize:10000}") long cacheSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionRetryExecutor = transactionRetryExecutor;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofMillis(ttlInMs);
+        this.records = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T execute(String key, UUID userId, String operation, Object request,
+                         Class<T> responseType, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+
+        String cacheKey = userId + ":" + key;
+        String requestHash = HashUtils.sha256Hex(operation + ":" + toJson(request));
+
+        Optional<IdempotencyRecord> stored = findRecord(cacheKey, userId, key);
+        if (stored.isPresent()) {
+            log.debug("execute[1]: replaying idempotency key {} for user {}", key, userId);
+            return replay(stored.get(), requestHash, responseType);
+        }
+
+        IdempotencyRecord completed;
+        try {
+            completed = transactionRetryExecutor.execute(status -> {
+                IdempotencyRecord reservation = reserve(userId, key, requestHash);
+                T result = action.get();
+                reservation.setResponseBody(toJson(result));
+                return idempotencyRecordRepository.save(reservation);
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("execute[2]: idempotency key {} was completed concurrently", key);
+            IdempotencyRecord concurrent = findRecord(cacheKey, userId, key).orElseThrow(() -> e);
+            return replay(concurrent, requestHash, responseType);
+        }
+
+        records.put(cacheKey, completed);
+        return replay(completed, requestHash, responseType);
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purgeIntervalInMs:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = idempotencyRecordRepository.deleteAllExpired(Instant.now());
+        log.debug("purgeExpired[1]: {} expired idempotency keys deleted", deleted);
+    }
+
+    /**
+     * Записывает ключ в начале транзакции операции. Уникальный индекс по (пользователь, ключ)
+     * заставляет конкурентный запрос с тем же ключом ждать фиксации этой транзакции и затем
+     * получить нарушение уникальности, после чего он возвращает сохраненный ответ.
+     */
+    private IdempotencyRecord reserve(UUID userId, String key, String requestHash) {
+        idempotencyRecordRepository.deleteExpired(userId, key, Instant.now());
+        Instant now = Instant.now();
+        return idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                .userId(userId)
+                .idempotencyKey(key)
+                .requestHash(requestHash)
+                .createdAt(now)
+                .expiresAt(now.plus(ttl))
+                .build());
+    }
+
+    private Optional<IdempotencyRecord> findRecord(String cacheKey, UUID userId, String key) {
+        IdempotencyRecord cached = records.getIfPresent(cacheKey);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId, key)
+                .filter(record -> record.getExpiresAt().isAfter(Instant.now()));
+        stored.filter(record -> record.getResponseBody() != null)
+                .ifPresent(record -> records.put(cacheKey, record));
+        return stored;
+    }
+
+    private <T> T replay(IdempotencyRecord record, String requestHash, Class<T> responseType) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new ApiException(HttpStatus.UNPROCESSABLE_ENTITY, Constants.IDEMPOTENCY_KEY_REUSED_MSG);
+        }
+        if (record.getResponseBody() == null) {
+            throw new ApiException(HttpStatus.CONFLICT, Constants.IDEMPOTENCY_KEY_IN_PROGRESS_MSG);
+        }
+
+        try {
+            return objectMapper.readValue(record.getResponseBody(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
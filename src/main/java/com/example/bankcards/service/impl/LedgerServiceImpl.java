@@ -0,0 +1,120 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.dto.ledger.LedgerEntryDto;
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.enums.LedgerDirection;
+import com.example.bankcards.entity.enums.LedgerOperation;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.util.Constants;
+import com.example.bankcards.util.mappers.LedgerEntryMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Реализация сервиса журнала операций по картам.
+ * Проводки одной операции сохраняются одним пакетом JDBC.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerServiceImpl implements LedgerService {
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final CardRepository cardRepository;
+    private final LedgerEntryMapper ledgerEntryMapper;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransfer(UUID fromCardId, UUID toCardId, BigDecimal amount) {
+        recordTransfers(List.of(new TransferRequest(fromCardId, toCardId, amount)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransfers(List<TransferRequest> transfers) {
+        Instant now = Instant.now();
+        List<LedgerEntry> entries = new ArrayList<>(transfers.size() * 2);
+
+        for (TransferRequest transfer : transfers) {
+            UUID journalId = UUID.randomUUID();
+            entries.add(entry(journalId, transfer.getFromCardId(), LedgerDirection.DEBIT,
+                    transfer.getAmount(), LedgerOperation.TRANSFER, now));
+            entries.add(entry(journalId, transfer.getToCardId(), LedgerDirection.CREDIT,
+                    transfer.getAmount(), LedgerOperation.TRANSFER, now));
+        }
+
+        ledgerEntryRepository.saveAll(entries);
+        log.debug("recordTransfers[1]: {} journals recorded", transfers.size());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAdjustment(UUID cardId, BigDecimal delta) {
+        if (delta.signum() == 0) {
+            return;
+        }
+
+        UUID journalId = UUID.randomUUID();
+        Instant now = Instant.now();
+        BigDecimal amount = delta.abs();
+        LedgerDirection cardDirection = delta.signum() > 0 ? LedgerDirection.CREDIT : LedgerDirection.DEBIT;
+        LedgerDirection systemDirection = delta.signum() > 0 ? LedgerDirection.DEBIT : LedgerDirection.CREDIT;
+
+        ledgerEntryRepository.saveAll(List.of(
+                entry(journalId, cardId, cardDirection, amount, LedgerOperation.BALANCE_ADJUSTMENT, now),
+                entry(journalId, null, systemDirection, amount, LedgerOperation.BALANCE_ADJUSTMENT, now)));
+        log.debug("recordAdjustment[1]: journal {} recorded", journalId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<LedgerEntryDto> getCardHistory(UUID cardId, User user, Pageable pageable) {
+        log.debug("getCardHistory[1]: card: {}, pageable: {}", cardId, pageable);
+        if (!cardRepository.existsByIdAndUser(cardId, user)) {
+            throw new ResourceNotFoundException(Constants.CARD_RESOURCE);
+        }
+
+        return ledgerEntryRepository.findByCardIdOrderByCreatedAtDesc(cardId, pageable)
+                .map(ledgerEntryMapper::ledgerEntryToLedgerEntryDto);
+    }
+
+    private LedgerEntry entry(UUID journalId, UUID cardId, LedgerDirection direction, BigDecimal amount,
+                              LedgerOperation operation, Instant createdAt) {
+        return LedgerEntry.builder()
+                .journalId(journalId)
+                .cardId(cardId)
+                .direction(direction)
+                .amount(amount)
+                .operation(operation)
+                .createdAt(createdAt)
+                .build();
+    }
+}
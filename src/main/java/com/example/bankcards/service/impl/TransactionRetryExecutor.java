@@ -0,0 +1,71 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.exception.ApiException;
+import com.example.bankcards.util.Constants;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Выполняет операцию в транзакции и повторяет ее целиком при конфликте блокировок
+ * (взаимная блокировка, ошибка сериализации) с экспоненциальной задержкой.
+ * Если транзакция уже открыта, операция присоединяется к ней без повторов: после конфликта
+ * транзакция PostgreSQL прервана, и повторять нужно всю внешнюю единицу работы.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+
+    @Value("${transfer.retry.maxAttempts:5}")
+    private int maxAttempts;
+
+    @Value("${transfer.retry.initialBackoffMs:20}")
+    private long initialBackoffMs;
+
+    @Value("${transfer.retry.maxBackoffMs:500}")
+    private long maxBackoffMs;
+
+    public <T> T execute(TransactionCallback<T> operation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionTemplate.execute(operation);
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(operation);
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("execute[1]: giving up after {} attempts", attempt, e);
+                    throw new ApiException(HttpStatus.CONFLICT, Constants.TRANSFER_CONFLICT_MSG, e);
+                }
+                log.debug("execute[2]: attempt {} failed with lock conflict: {}", attempt, e.getMessage());
+                // при open-in-view контекст живет дольше транзакции и хранил бы сущности отмененной попытки
+                entityManager.clear();
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    private void backoff(int attempt, ConcurrencyFailureException cause) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 16));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(HttpStatus.CONFLICT, Constants.TRANSFER_CONFLICT_MSG, cause);
+        }
+    }
+}
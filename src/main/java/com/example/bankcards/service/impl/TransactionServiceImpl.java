@@ -1,77 +1,308 @@
 package com.example.bankcards.service.impl;
 
-import com.example.bankcards.entity.Card;
+import com.example.bankcards.dto.card.BatchTransferResponse;
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.dto.card.TransferResult;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.enums.CardStatus;
 import com.example.bankcards.exception.InvalidCardOperationException;
 import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardBalanceSlotRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.CardState;
+import com.example.bankcards.repository.projection.SlotBalanceView;
+import com.example.bankcards.service.LedgerService;
 import com.example.bankcards.service.TransactionService;
 import com.example.bankcards.util.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.encrypt.TextEncryptor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.UUID;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Реализация сервиса для выполнения финансовых транзакций.
  * Обеспечивает безопасное выполнение переводов между картами с проверкой валидности операций.
+ * Перевод выполняется двумя условными UPDATE без предварительного чтения карт; строки карт
+ * изменяются в порядке возрастания идентификаторов, поэтому встречные переводы не приводят
+ * к взаимной блокировке, а конфликты блокировок повторяются с ограниченной задержкой.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TransactionServiceImpl implements TransactionService {
 
+    /**
+     * Порядок блокировки строк карт. Совпадает с порядком сортировки uuid в PostgreSQL,
+     * поэтому одиночные и пакетные переводы захватывают строки в одной последовательности.
+     */
+    private static final Comparator<UUID> LOCK_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
     private final CardRepository cardRepository;
-    private final TextEncryptor textEncryptor;
+    private final CardBalanceSlotRepository cardBalanceSlotRepository;
+    private final LedgerService ledgerService;
+    private final TransactionRetryExecutor transactionRetryExecutor;
+    private final CardNearCache cardNearCache;
+    private final JdbcTemplate jdbcTemplate;
 
     /**
      * {@inheritDoc}
      */
     @Override
-    @Transactional
     public void transferBetweenOwnCards(UUID fromCardId, UUID toCardId, BigDecimal amount, User user) {
         log.debug("transferBetweenOwnCards[1]: Transfer from card with id: {} to card with id: {}", fromCardId, toCardId);
 
-        Card fromCard = cardRepository.findByIdAndUser(fromCardId, user)
-                .orElseThrow(() -> new ResourceNotFoundException(Constants.CARD_RESOURCE));
+        transactionRetryExecutor.execute(status -> {
+            transfer(fromCardId, toCardId, amount, user);
+            ledgerService.recordTransfer(fromCardId, toCardId, amount);
+            cardNearCache.evict(user.getId());
+            return null;
+        });
 
-        Card toCard = cardRepository.findByIdAndUser(toCardId, user)
-                .orElseThrow(() -> new ResourceNotFoundException(Constants.CARD_RESOURCE));
+        log.info("transferBetweenOwnCards[1]: Transfer completed: {} from card {} to card {}", amount, fromCardId, toCardId);
+    }
 
-        validateTransfer(fromCard, toCard, amount);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BatchTransferResponse transferBatch(List<TransferRequest> transfers, boolean atomic, User user) {
+        log.debug("transferBatch[1]: {} transfers, atomic: {}", transfers.size(), atomic);
 
-        fromCard.setBalance(fromCard.getBalance().subtract(amount));
-        toCard.setBalance(toCard.getBalance().add(amount));
+        List<TransferResult> results = transactionRetryExecutor.execute(status -> {
+            lockCards(transfers, user);
+            cardNearCache.evict(user.getId());
+            return atomic
+                    ? applyAtomically(transfers, user)
+                    : applyIndividually(transfers, user);
+        });
 
-        cardRepository.save(fromCard);
-        cardRepository.save(toCard);
+        int completed = (int) results.stream()
+                .filter(result -> result.getStatus() == TransferResult.Status.COMPLETED)
+                .count();
+        log.info("transferBatch[2]: {} of {} transfers completed", completed, transfers.size());
 
-        log.info("transferBetweenOwnCards[1]: Transfer completed: {} from card {} to card {}", amount, fromCardId, toCardId);
+        return BatchTransferResponse.builder()
+                .results(results)
+                .completed(completed)
+                .failed(results.size() - completed)
+                .build();
     }
 
-    private void validateTransfer(Card fromCard, Card toCard, BigDecimal amount) {
-        if (fromCard.getStatus() != CardStatus.ACTIVE) {
-            throw new InvalidCardOperationException(Constants.SOURCE_CARD_NOT_ACTIVE);
+    /**
+     * Выполняет пакет целиком или не выполняет ничего. Откат выполняется к точке сохранения,
+     * а не пометкой транзакции: пакет может выполняться внутри внешней транзакции
+     * (идемпотентный запрос), которая должна зафиксировать ответ о неудаче.
+     */
+    private List<TransferResult> applyAtomically(List<TransferRequest> transfers, User user) {
+        Savepoint savepoint = setSavepoint();
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest transfer = transfers.get(i);
+            try {
+                transfer(transfer.getFromCardId(), transfer.getToCardId(), transfer.getAmount(), user);
+            } catch (InvalidCardOperationException | ResourceNotFoundException e) {
+                rollbackTo(savepoint);
+                List<TransferResult> results = new ArrayList<>(transfers.size());
+                for (int j = 0; j < transfers.size(); j++) {
+                    results.add(j == i
+                            ? result(j, transfers.get(j), TransferResult.Status.FAILED, e.getMessage())
+                            : result(j, transfers.get(j), TransferResult.Status.ROLLED_BACK, null));
+                }
+                return results;
+            }
         }
 
-        if (toCard.getStatus() != CardStatus.ACTIVE) {
-            throw new InvalidCardOperationException(Constants.DESTINATION_CARD_NOT_ACTIVE);
+        releaseSavepoint(savepoint);
+        ledgerService.recordTransfers(transfers);
+
+        List<TransferResult> results = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            results.add(result(i, transfers.get(i), TransferResult.Status.COMPLETED, null));
         }
+        return results;
+    }
 
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new InvalidCardOperationException(Constants.NEGATIVE_AMOUNT);
+    /**
+     * Выполняет каждый перевод пакета под собственной точкой сохранения, чтобы неудачный перевод
+     * откатывался отдельно. Точки сохранения создаются на JDBC-соединении транзакции: JpaTransactionManager
+     * с Hibernate не поддерживает PROPAGATION_NESTED. Переводы изменяют балансы только UPDATE-запросами
+     * и не оставляют измененных сущностей в persistence context, поэтому откат к точке сохранения безопасен.
+     */
+    private List<TransferResult> applyIndividually(List<TransferRequest> transfers, User user) {
+        List<TransferResult> results = new ArrayList<>(transfers.size());
+        List<TransferRequest> completed = new ArrayList<>(transfers.size());
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest transfer = transfers.get(i);
+            Savepoint savepoint = setSavepoint();
+            try {
+                transfer(transfer.getFromCardId(), transfer.getToCardId(), transfer.getAmount(), user);
+                releaseSavepoint(savepoint);
+                completed.add(transfer);
+                results.add(result(i, transfer, TransferResult.Status.COMPLETED, null));
+            } catch (InvalidCardOperationException | ResourceNotFoundException e) {
+                rollbackTo(savepoint);
+                results.add(result(i, transfer, TransferResult.Status.FAILED, e.getMessage()));
+            }
+        }
+
+        if (!completed.isEmpty()) {
+            ledgerService.recordTransfers(completed);
+        }
+        return results;
+    }
+
+    private Savepoint setSavepoint() {
+        return jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+    }
+
+    private void releaseSavepoint(Savepoint savepoint) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            connection.releaseSavepoint(savepoint);
+            return null;
+        });
+    }
+
+    private void rollbackTo(Savepoint savepoint) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            connection.rollback(savepoint);
+            return null;
+        });
+    }
+
+    /**
+     * Блокирует карты пакета в порядке {@link #LOCK_ORDER}, а слоты каждой карты - сразу после ее строки.
+     * Одиночные переводы захватывают строку или слоты карты в том же порядке карт, поэтому пакет
+     * не может удерживать строку карты, ожидая слот карты, предшествующей ей в этом порядке.
+     */
+    private void lockCards(List<TransferRequest> transfers, User user) {
+        Set<UUID> cardIds = new TreeSet<>(LOCK_ORDER);
+        for (TransferRequest transfer : transfers) {
+            cardIds.add(transfer.getFromCardId());
+            cardIds.add(transfer.getToCardId());
+        }
+        for (UUID cardId : cardIds) {
+            int balanceSlots = cardRepository.lockBalanceSlotsByIdAndUserId(cardId, user.getId()).orElse(0);
+            if (balanceSlots > 0) {
+                cardBalanceSlotRepository.lockBalancesByCardId(cardId);
+            }
         }
+    }
 
-        if (fromCard.getBalance().compareTo(amount) < 0) {
+    private TransferResult result(int index, TransferRequest transfer, TransferResult.Status status, String message) {
+        return TransferResult.builder()
+                .index(index)
+                .fromCardId(transfer.getFromCardId())
+                .toCardId(transfer.getToCardId())
+                .amount(transfer.getAmount())
+                .status(status)
+                .message(message)
+                .build();
+    }
+
+    private void transfer(UUID fromCardId, UUID toCardId, BigDecimal amount, User user) {
+        validateTransfer(fromCardId, toCardId, amount);
+
+        if (LOCK_ORDER.compare(fromCardId, toCardId) < 0) {
+            debit(fromCardId, amount, user);
+            credit(toCardId, amount, user);
+        } else {
+            credit(toCardId, amount, user);
+            debit(fromCardId, amount, user);
+        }
+    }
+
+    private void debit(UUID cardId, BigDecimal amount, User user) {
+        if (cardRepository.debitIfActive(cardId, user, amount) > 0) {
+            return;
+        }
+
+        CardState card = cardRepository.findStateByIdAndUser(cardId, user)
+                .orElseThrow(() -> new ResourceNotFoundException(Constants.CARD_RESOURCE));
+        if (card.getStatus() != CardStatus.ACTIVE) {
+            throw new InvalidCardOperationException(Constants.SOURCE_CARD_NOT_ACTIVE);
+        }
+        if (card.getBalanceSlots() == 0) {
+            throw new InvalidCardOperationException(Constants.INSUFFICIENT_FUNDS);
+        }
+
+        debitStriped(cardId, amount);
+    }
+
+    /**
+     * Списывает сумму с карты с распределенным балансом: сначала со строки карты, затем
+     * последовательно со слотов. Строка карты и все слоты блокируются на время списания,
+     * балансы читаются из базы данных, а не из persistence context, и уменьшаются условными UPDATE,
+     * поэтому предыдущие изменения той же карты в транзакции не теряются.
+     */
+    private void debitStriped(UUID cardId, BigDecimal amount) {
+        BigDecimal cardBalance = cardRepository.lockBalanceById(cardId)
+                .orElseThrow(() -> new ResourceNotFoundException(Constants.CARD_RESOURCE));
+        List<SlotBalanceView> slots = cardBalanceSlotRepository.lockBalancesByCardId(cardId);
+
+        BigDecimal total = cardBalance;
+        for (SlotBalanceView slot : slots) {
+            total = total.add(slot.getBalance());
+        }
+        if (total.compareTo(amount) < 0) {
             throw new InvalidCardOperationException(Constants.INSUFFICIENT_FUNDS);
         }
 
-        if (fromCard.getId().equals(toCard.getId())) {
+        BigDecimal remaining = amount;
+        BigDecimal fromCard = cardBalance.min(remaining);
+        if (fromCard.signum() > 0) {
+            cardRepository.debitBalance(cardId, fromCard);
+            remaining = remaining.subtract(fromCard);
+        }
+
+        for (SlotBalanceView slot : slots) {
+            if (remaining.signum() == 0) {
+                break;
+            }
+            BigDecimal fromSlot = slot.getBalance().min(remaining);
+            if (fromSlot.signum() > 0) {
+                cardBalanceSlotRepository.debitSlot(slot.getId(), fromSlot);
+                remaining = remaining.subtract(fromSlot);
+            }
+        }
+    }
+
+    /**
+     * Зачисляет сумму на строку карты или в случайный слот. Зачисление в слот повторяется один раз,
+     * если ни одна строка не изменилась: конкурентная смена числа слотов могла удалить слот,
+     * на блокировке которого ожидал UPDATE.
+     */
+    private void credit(UUID cardId, BigDecimal amount, User user) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (cardRepository.creditIfActive(cardId, user, amount) > 0) {
+                return;
+            }
+
+            int seed = ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+            if (cardBalanceSlotRepository.creditRandomSlot(cardId, user.getId(), seed, amount) > 0) {
+                return;
+            }
+        }
+
+        cardRepository.findStateByIdAndUser(cardId, user)
+                .orElseThrow(() -> new ResourceNotFoundException(Constants.CARD_RESOURCE));
+        throw new InvalidCardOperationException(Constants.DESTINATION_CARD_NOT_ACTIVE);
+    }
+
+    private void validateTransfer(UUID fromCardId, UUID toCardId, BigDecimal amount) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new InvalidCardOperationException(Constants.NEGATIVE_AMOUNT);
+        }
+
+        if (fromCardId.equals(toCardId)) {
             throw new InvalidCardOperationException(Constants.SAME_CARD_TRANSFER_MSG);
         }
     }
@@ -0,0 +1,41 @@
+package com.example.bankcards.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+
+/**
+ * Вычисляет слепой индекс номера карты: HMAC-SHA256 от номера на отдельном ключе.
+ * Значение детерминировано, поэтому по нему можно искать карту и проверять уникальность номера,
+ * не расшифровывая хранимые номера, и при этом без ключа оно не позволяет перебрать номера.
+ */
+@Component
+public class CardNumberHasher {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final ThreadLocal<Mac> mac;
+
+    public CardNumberHasher(@Value("${encryption.blindIndexKey}") String blindIndexKey) {
+        SecretKeySpec key = new SecretKeySpec(blindIndexKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        this.mac.get();
+    }
+
+    public String hash(String cardNumber) {
+        return HexFormat.of().formatHex(mac.get().doFinal(cardNumber.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -3,14 +3,13 @@ package com.example.bankcards.util;
 
 import com.example.bankcards.entity.Card;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class CardNumberUtils {
 
-    private static final Random random = new Random();
-
     public static String generateCardNumber() {
         StringBuilder stringBuilder = new StringBuilder();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
 
         for (int i = 0; i < Constants.CARD_NUMBER_LENGTH; i++) {
             stringBuilder.append(random.nextInt(10));
@@ -21,6 +20,7 @@ public class CardNumberUtils {
 
     public static String generateCardNumber(String bin) {
         StringBuilder stringBuilder = new StringBuilder();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
 
         if (bin != null && bin.matches("\\d{6}")) {
             stringBuilder.append(bin);
@@ -38,6 +38,33 @@ public class CardNumberUtils {
         return cardNumber != null && cardNumber.matches("\\d{16}");
     }
 
+    /**
+     * Вычисляет контрольную цифру по алгоритму Луна для номера без контрольной цифры.
+     */
+    public static char luhnCheckDigit(CharSequence payload) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = payload.length() - 1; i >= 0; i--) {
+            int digit = payload.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+
+    public static boolean isLuhnValid(String cardNumber) {
+        return cardNumber != null
+                && cardNumber.length() > 1
+                && luhnCheckDigit(cardNumber.substring(0, cardNumber.length() - 1))
+                == cardNumber.charAt(cardNumber.length() - 1);
+    }
+
     public static String getMaskedCardNumber(Card card) {
         return "**** **** **** " + card.getLastFourDigits();
     }
@@ -23,19 +23,33 @@ public class Constants {
     public static final String INSUFFICIENT_FUNDS = "Insufficient funds";
     public static final String SAME_CARD_TRANSFER_MSG = "Cannot transfer to the same card";
     public static final String SUCCESSFUL_TRANSFER = "The transfer was completed successfully";
+    public static final String SERVER_OVERLOADED_MSG = "Server is overloaded, please retry later";
+    public static final String RATE_LIMIT_EXCEEDED_MSG = "Too many requests, please retry later";
+    public static final String TOO_MANY_LOGIN_ATTEMPTS_MSG = "Too many login attempts, please retry later";
+    public static final String PASSWORD_HASHING_BUSY_MSG = "Too many authentication requests, please retry later";
+    public static final String TRANSFER_CONFLICT_MSG = "The transfer could not be completed due to concurrent operations, please retry";
     public static final String BUSY_EMAIL_MSG = "already is busy";
     public static final String CANNOT_UPDATE_INACTIVE_CARD_BALANCE = "You cannot change the balance of an inactive card";
+    public static final String UNSUPPORTED_BIN = "BIN is not served by this issuer";
+    public static final String INVALID_BALANCE_SLOTS = "Balance slots must be between 0 and 64";
+
+    public static final String INVALID_CURSOR_MSG = "Invalid cursor";
+    public static final String IDEMPOTENCY_KEY_REUSED_MSG = "Idempotency key was already used with a different request";
+    public static final String IDEMPOTENCY_KEY_IN_PROGRESS_MSG = "Request with this idempotency key is still in progress";
 
     public static final String CARD_DELETED_MSG = "Card was successfully deleted!";
 
     public static final String AUTHORIZATION_HEADER_NAME = "Authorization";
     public static final String BEARER_PREFIX = "Bearer ";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 
     public static final String USER_RESOURCE = "User";
     public static final String CARD_RESOURCE = "Card";
     public static final String EMAIL_STRING = "Email";
 
     public static final String ROLE_CLAIM = "role";
+    public static final String USER_ID_CLAIM = "userId";
+    public static final String TOKEN_EPOCH_CLAIM = "tokenEpoch";
 
     public static final String COOKIE_SET_COOKIE_HEADER = "Set-Cookie";
     public static final String COOKIE_MAKE_HEADERS = "refreshToken=%s; HttpOnly; Max-Age=%d; Path=/; SameSite=Lax; Secure";
@@ -44,5 +58,9 @@ public class Constants {
     public static final String DOTENV_PROPS = "dotenvProperties";
 
     public static final int CARD_NUMBER_LENGTH = 16;
+    public static final int BIN_LENGTH = 6;
+    public static final int CARD_NUMBER_GENERATION_ATTEMPTS = 5;
+    public static final int MAX_BALANCE_SLOTS = 64;
+    public static final int MAX_CURSOR_PAGE_SIZE = 100;
     public static final String CARD_MASK = "**** **** **** ";
 }
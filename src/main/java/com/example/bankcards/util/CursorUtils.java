@@ -0,0 +1,53 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.dto.common.CursorPage;
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+public class CursorUtils {
+
+    public static String encode(UUID id) {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static UUID decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != 16) {
+                throw new ApiException(HttpStatus.BAD_REQUEST, Constants.INVALID_CURSOR_MSG);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong());
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(HttpStatus.BAD_REQUEST, Constants.INVALID_CURSOR_MSG, e);
+        }
+    }
+
+    /**
+     * Собирает страницу из результата, запрошенного с размером size + 1:
+     * лишний элемент означает наличие следующей страницы и не попадает в ответ.
+     */
+    public static <E, T> CursorPage<T> toPage(List<E> rows, int size, Function<E, UUID> idExtractor,
+                                              Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+
+        return CursorPage.<T>builder()
+                .content(pageRows.stream().map(mapper).toList())
+                .nextCursor(hasNext ? encode(idExtractor.apply(pageRows.get(size - 1))) : null)
+                .hasNext(hasNext)
+                .build();
+    }
+}
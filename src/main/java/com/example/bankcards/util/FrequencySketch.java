@@ -0,0 +1,65 @@
+package com.example.bankcards.util;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Count-min sketch с затуханием: оценивает частоту ключей в памяти фиксированного размера.
+ * Оценка может быть завышена из-за коллизий, но никогда не занижена. Все операции выполняются
+ * без блокировок на атомарных счетчиках; {@link #decay()} делит все счетчики пополам,
+ * поэтому оценка отражает недавнюю активность.
+ */
+public class FrequencySketch {
+
+    private final AtomicIntegerArray counters;
+    private final int depth;
+    private final int width;
+
+    public FrequencySketch(int depth, int width) {
+        this.depth = depth;
+        this.width = width;
+        this.counters = new AtomicIntegerArray(depth * width);
+    }
+
+    /**
+     * Увеличивает счетчики ключа и возвращает новую оценку его частоты.
+     */
+    public int increment(String key) {
+        long hash = HashUtils.hash64(key);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int value = counters.incrementAndGet(index(hash, row));
+            estimate = Math.min(estimate, value);
+        }
+        return estimate;
+    }
+
+    public int estimate(String key) {
+        long hash = HashUtils.hash64(key);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    public void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            int value;
+            do {
+                value = counters.get(i);
+            } while (value != 0 && !counters.compareAndSet(i, value, value >>> 1));
+        }
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    private int index(long hash, int row) {
+        return row * width + HashUtils.index(hash, row, width);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.bankcards.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public class HashUtils {
+
+    public static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Быстрый некриптографический 64-битный хеш строки: FNV-1a с финальным перемешиванием fmix64.
+     */
+    public static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Индекс i-й хеш-функции в диапазоне [0, size), полученный двойным хешированием из одного 64-битного хеша.
+     */
+    public static int index(long hash, int i, int size) {
+        int combined = (int) hash + i * (int) (hash >>> 32);
+        return Math.floorMod(combined, size);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.bankcards.util.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+/**
+ * Операции AES-GCM над массивами байт. Формат результата: IV || шифртекст || тег.
+ * Объект Cipher создается один раз на поток и переинициализируется новым IV для каждой операции.
+ */
+public final class AesGcm {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(AesGcm::newCipher);
+
+    private AesGcm() {
+    }
+
+    public static byte[] seal(SecretKey key, byte[] plaintext) {
+        byte[] iv = new byte[IV_LENGTH];
+        SECURE_RANDOM.nextBytes(iv);
+
+        try {
+            Cipher gcm = CIPHER.get();
+            gcm.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            byte[] output = new byte[IV_LENGTH + gcm.getOutputSize(plaintext.length)];
+            System.arraycopy(iv, 0, output, 0, IV_LENGTH);
+            gcm.doFinal(plaintext, 0, plaintext.length, output, IV_LENGTH);
+            return output;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to encrypt value", e);
+        }
+    }
+
+    public static byte[] open(SecretKey key, byte[] input) {
+        if (input.length < IV_LENGTH) {
+            throw new IllegalArgumentException("Ciphertext is too short");
+        }
+        try {
+            Cipher gcm = CIPHER.get();
+            gcm.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, input, 0, IV_LENGTH));
+            return gcm.doFinal(input, IV_LENGTH, input.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to decrypt value", e);
+        }
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
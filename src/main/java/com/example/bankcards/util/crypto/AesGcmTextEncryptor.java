@@ -0,0 +1,69 @@
+package com.example.bankcards.util.crypto;
+
+import org.springframework.security.crypto.encrypt.AesBytesEncryptor;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Шифрование строк алгоритмом AES-GCM с проверкой целостности.
+ * Формат шифртекста: "v2:" + Base64(IV || шифртекст || тег). Строки без префикса считаются
+ * зашифрованными прежним алгоритмом (AES-CBC через {@link AesBytesEncryptor}) и расшифровываются им.
+ */
+public class AesGcmTextEncryptor implements TextEncryptor {
+
+    public static final String VERSION_PREFIX = "v2:";
+
+    private static final String KEY_DERIVATION_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int KEY_DERIVATION_ITERATIONS = 1024;
+    private static final int KEY_LENGTH_BITS = 256;
+
+    private final SecretKey key;
+    private final AesBytesEncryptor legacyEncryptor;
+
+    public AesGcmTextEncryptor(String password, String salt) {
+        this.key = deriveKey(password, salt);
+        this.legacyEncryptor = new AesBytesEncryptor(password, salt);
+    }
+
+    @Override
+    public String encrypt(String text) {
+        byte[] plaintext = text.getBytes(StandardCharsets.UTF_8);
+        try {
+            return VERSION_PREFIX + Base64.getEncoder().encodeToString(AesGcm.seal(key, plaintext));
+        } finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+
+    @Override
+    public String decrypt(String encryptedText) {
+        if (!encryptedText.startsWith(VERSION_PREFIX)) {
+            byte[] decrypted = legacyEncryptor.decrypt(Base64.getDecoder().decode(encryptedText));
+            return new String(decrypted, StandardCharsets.UTF_8);
+        }
+
+        byte[] input = Base64.getDecoder().decode(encryptedText.substring(VERSION_PREFIX.length()));
+        return new String(AesGcm.open(key, input), StandardCharsets.UTF_8);
+    }
+
+    private static SecretKey deriveKey(String password, String salt) {
+        try {
+            PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), HexFormat.of().parseHex(salt),
+                    KEY_DERIVATION_ITERATIONS, KEY_LENGTH_BITS);
+            byte[] encoded = SecretKeyFactory.getInstance(KEY_DERIVATION_ALGORITHM).generateSecret(spec).getEncoded();
+            spec.clearPassword();
+            return new SecretKeySpec(encoded, "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to derive encryption key", e);
+        }
+    }
+}
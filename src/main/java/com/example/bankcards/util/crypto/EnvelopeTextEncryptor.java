@@ -0,0 +1,63 @@
+package com.example.bankcards.util.crypto;
+
+import com.example.bankcards.service.DataKeyService;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Конвертное шифрование строк: значение шифруется ключом данных (DEK) алгоритмом AES-GCM,
+ * а сам ключ данных хранится в таблице data_keys зашифрованным мастер-ключом.
+ * Формат шифртекста: "v3:" + идентификатор ключа данных + ":" + Base64(IV || шифртекст || тег).
+ * Значения прежних форматов расшифровываются мастер-шифратором.
+ */
+public class EnvelopeTextEncryptor implements TextEncryptor {
+
+    public static final String VERSION_PREFIX = "v3:";
+
+    private static final int KEY_ID_LENGTH = 36;
+
+    private final DataKeyService dataKeyService;
+    private final TextEncryptor fallbackEncryptor;
+
+    public EnvelopeTextEncryptor(DataKeyService dataKeyService, TextEncryptor fallbackEncryptor) {
+        this.dataKeyService = dataKeyService;
+        this.fallbackEncryptor = fallbackEncryptor;
+    }
+
+    /**
+     * Возвращает префикс шифртекстов, зашифрованных указанным ключом данных.
+     */
+    public static String prefixOf(UUID keyId) {
+        return VERSION_PREFIX + keyId + ":";
+    }
+
+    @Override
+    public String encrypt(String text) {
+        DataKeyService.DataKeyMaterial dataKey = dataKeyService.getActiveKey();
+        byte[] plaintext = text.getBytes(StandardCharsets.UTF_8);
+        try {
+            return prefixOf(dataKey.id()) + Base64.getEncoder().encodeToString(AesGcm.seal(dataKey.key(), plaintext));
+        } finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+
+    @Override
+    public String decrypt(String encryptedText) {
+        if (!encryptedText.startsWith(VERSION_PREFIX)) {
+            return fallbackEncryptor.decrypt(encryptedText);
+        }
+
+        int keyIdEnd = VERSION_PREFIX.length() + KEY_ID_LENGTH;
+        if (encryptedText.length() <= keyIdEnd || encryptedText.charAt(keyIdEnd) != ':') {
+            throw new IllegalArgumentException("Malformed ciphertext");
+        }
+        UUID keyId = UUID.fromString(encryptedText.substring(VERSION_PREFIX.length(), keyIdEnd));
+        byte[] input = Base64.getDecoder().decode(encryptedText.substring(keyIdEnd + 1));
+        return new String(AesGcm.open(dataKeyService.getKey(keyId), input), StandardCharsets.UTF_8);
+    }
+}
@@ -4,6 +4,7 @@ import com.example.bankcards.dto.card.CardDto;
 import com.example.bankcards.dto.user.UserDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.projection.CardView;
 import com.example.bankcards.util.Constants;
 import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
@@ -24,7 +25,20 @@ public interface CardMapper {
                 .cardOwner(card.getCardOwner())
                 .expiryDate(card.getExpiryDate())
                 .status(card.getStatus())
-                .balance(card.getBalance())
+                .balance(card.getTotalBalance())
+                .build();
+    }
+
+    default CardDto mapToCardResponse(CardView card) {
+        return CardDto.builder()
+                .cardNumber(Constants.CARD_MASK + card.getLastFourDigits())
+                .lastFourDigits(card.getLastFourDigits())
+                .cardOwner(card.getCardOwner())
+                .expiryDate(card.getExpiryDate())
+                .status(card.getStatus())
+                .balance(card.getStripedBalance() == null
+                        ? card.getBalance()
+                        : card.getBalance().add(card.getStripedBalance()))
                 .build();
     }
 }
@@ -0,0 +1,11 @@
+package com.example.bankcards.util.mappers;
+
+import com.example.bankcards.dto.ledger.LedgerEntryDto;
+import com.example.bankcards.entity.LedgerEntry;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface LedgerEntryMapper {
+
+    LedgerEntryDto ledgerEntryToLedgerEntryDto(LedgerEntry ledgerEntry);
+}
@@ -1,34 +1,59 @@
 package com.example.bankcards.util.parser;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
-@RequiredArgsConstructor
 public class JwtParser {
 
-    private final SecretKey jwtSigningKey;
+    private final io.jsonwebtoken.JwtParser parser;
+    private final Cache<String, Claims> verifiedClaims;
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    public JwtParser(SecretKey jwtSigningKey,
+                     @Value("${token.parser.cacheSize:10000}") long cacheSize) {
+        this.parser = Jwts.parser()
+                .verifyWith(jwtSigningKey)
+                .build();
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new ClaimsExpiry())
+                .build();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(jwtSigningKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Проверяет подпись токена и возвращает его claims.
+     * Результат кэшируется до истечения срока действия токена, поэтому повторные запросы
+     * с тем же токеном не вычисляют HMAC заново.
+     *
+     * @param token JWT токен
+     * @return проверенные claims токена
+     * @throws io.jsonwebtoken.JwtException если токен невалиден или просрочен
+     */
+    public Claims parseClaims(String token) {
+        Claims cached = verifiedClaims.getIfPresent(token);
+        if (cached != null && !isExpired(cached)) {
+            return cached;
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        verifiedClaims.put(token, claims);
+        return claims;
+    }
+
+    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+        return claimsResolver.apply(parseClaims(token));
     }
 
     public Date extractExpiration(String token) {
@@ -40,11 +65,37 @@ public class JwtParser {
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return isTokenValid(parseClaims(token), userDetails);
+    }
+
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isExpired(claims);
     }
 
     public Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return isExpired(parseClaims(token));
+    }
+
+    public boolean isExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
+    }
+
+    private static class ClaimsExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String token, Claims claims, long currentTime) {
+            long ttlMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(ttlMs, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,164 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.ApiException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+class BoundedPasswordEncoderTest {
+
+    private static final int CALLERS = 32;
+    private static final Duration LOAD_DURATION = Duration.ofSeconds(1);
+    /**
+     * Пауза клиента после отказа 503, как при соблюдении Retry-After.
+     */
+    private static final long REJECTED_PAUSE_MS = 20;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void delegatesToWrappedEncoder() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 4, 5000);
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("other", hash));
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blockingEncoder(started), 1, 1, 5000);
+        callers.submit(() -> encoder.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> encoder.encode("queued"));
+        // даем второму вызову занять единственное место в очереди
+        Thread.sleep(200);
+
+        ApiException e = assertThrows(ApiException.class, () -> encoder.encode("rejected"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getHttpStatus());
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+    }
+
+    @Test
+    void rejectsWhenWaitTimesOut() {
+        encoder = new BoundedPasswordEncoder(blockingEncoder(new CountDownLatch(1)), 1, 4, 50);
+
+        ApiException e = assertThrows(ApiException.class, () -> encoder.encode("slow"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getHttpStatus());
+        assertInstanceOf(TimeoutException.class, e.getCause());
+    }
+
+    /**
+     * Сравнивает входы в секунду при перегрузке: все запросы проверяют пароль в своих потоках
+     * или через ограниченный пул. Пропускная способность ограничена процессорами в обоих случаях,
+     * но без пула задержка успешного входа растет с числом ожидающих запросов, а с пулом лишние
+     * запросы сразу получают 503 и задержка остается ограниченной.
+     */
+    @Test
+    void compareLoginsPerSecondUnderLoad() throws Exception {
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(6);
+        String hash = bcrypt.encode("secret");
+        int threads = Runtime.getRuntime().availableProcessors();
+        encoder = new BoundedPasswordEncoder(bcrypt, threads, threads * 2, 2000);
+
+        LoadResult unbounded = load(bcrypt, hash);
+        LoadResult bounded = load(encoder, hash);
+
+        log.info("compareLoginsPerSecondUnderLoad[1]: {} callers, unbounded: {}", CALLERS, unbounded);
+        log.info("compareLoginsPerSecondUnderLoad[2]: {} callers, {} hashing threads: {}", CALLERS, threads, bounded);
+        assertTrue(bounded.succeeded() > 0);
+        assertTrue(bounded.maxLatencyMs() <= 2000 + 500, bounded::toString);
+    }
+
+    private LoadResult load(PasswordEncoder passwordEncoder, String hash) throws InterruptedException {
+        LongAdder succeeded = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAccumulator maxLatency = new LongAccumulator(Math::max, 0);
+        long deadline = System.nanoTime() + LOAD_DURATION.toNanos();
+        ExecutorService load = Executors.newFixedThreadPool(CALLERS);
+        for (int i = 0; i < CALLERS; i++) {
+            load.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        assertTrue(passwordEncoder.matches("secret", hash));
+                        succeeded.increment();
+                        maxLatency.accumulate(System.nanoTime() - start);
+                    } catch (ApiException e) {
+                        rejected.increment();
+                        pause();
+                    }
+                }
+            });
+        }
+        load.shutdown();
+        assertTrue(load.awaitTermination(1, TimeUnit.MINUTES));
+        double seconds = LOAD_DURATION.toNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        return new LoadResult(succeeded.sum(), Math.round(succeeded.sum() / seconds), rejected.sum(),
+                TimeUnit.NANOSECONDS.toMillis(maxLatency.get()));
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(REJECTED_PAUSE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record LoadResult(long succeeded, long loginsPerSecond, long rejected, long maxLatencyMs) {
+    }
+
+    private PasswordEncoder blockingEncoder(CountDownLatch started) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.bankcards.security.limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long HASHING = TimeUnit.MILLISECONDS.toNanos(80);
+
+    @Test
+    void lowPriorityIsShedBeforeCritical() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 1, 400, 1);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriority.LOW));
+        }
+        assertFalse(limiter.tryAcquire(RequestPriority.LOW));
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriority.NORMAL));
+        }
+        assertFalse(limiter.tryAcquire(RequestPriority.NORMAL));
+
+        assertTrue(limiter.tryAcquire(RequestPriority.CRITICAL));
+        assertFalse(limiter.tryAcquire(RequestPriority.CRITICAL));
+        assertEquals(10, limiter.getInFlight());
+    }
+
+    @Test
+    void limitGrowsUnderLoadWhileLatencyIsStable() {
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 10, 400, 1);
+        hold(limiter, 60);
+
+        complete(limiter, RequestPriority.CRITICAL, FAST);
+        complete(limiter, RequestPriority.CRITICAL, FAST);
+
+        assertTrue(limiter.getLimit() > 100);
+    }
+
+    @Test
+    void limitDoesNotGrowWhileMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 10, 400, 1);
+
+        for (int i = 0; i < 50; i++) {
+            complete(limiter, RequestPriority.CRITICAL, FAST);
+        }
+
+        assertEquals(100, limiter.getLimit());
+    }
+
+    @Test
+    void limitShrinksWhenLatencyGrows() {
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 10, 400, 1);
+        complete(limiter, RequestPriority.CRITICAL, FAST);
+        double before = limiter.getLimit();
+
+        complete(limiter, RequestPriority.CRITICAL, SLOW);
+
+        assertTrue(limiter.getLimit() < before);
+    }
+
+    @Test
+    void steadyMixedLatenciesKeepLimitLevel() {
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 10, 400, 5);
+        hold(limiter, 40);
+
+        // в каждом окне быстрые GET, вход с BCrypt и медленные административные списки;
+        // окна без запросов какого-то приоритета не сдвигают его базу
+        for (int window = 0; window < 200; window++) {
+            complete(limiter, RequestPriority.NORMAL, FAST);
+            complete(limiter, RequestPriority.CRITICAL, FAST);
+            complete(limiter, RequestPriority.CRITICAL, HASHING);
+            complete(limiter, RequestPriority.NORMAL, SLOW);
+            if (window % 3 == 0) {
+                complete(limiter, RequestPriority.LOW, HASHING);
+            } else {
+                complete(limiter, RequestPriority.NORMAL, FAST);
+            }
+        }
+
+        assertTrue(limiter.getLimit() >= 90 && limiter.getLimit() <= 110, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void limitStaysWithinBounds() {
+        AdaptiveConcurrencyLimiter shrinking = limiter(20, 15, 30, 1);
+        complete(shrinking, RequestPriority.CRITICAL, FAST);
+        for (int i = 0; i < 5; i++) {
+            complete(shrinking, RequestPriority.CRITICAL, HASHING);
+        }
+        assertEquals(15, shrinking.getLimit());
+
+        AdaptiveConcurrencyLimiter growing = limiter(20, 10, 30, 1);
+        hold(growing, 15);
+        for (int i = 0; i < 20; i++) {
+            complete(growing, RequestPriority.CRITICAL, FAST);
+        }
+        assertEquals(30, growing.getLimit());
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initial, int min, int max, int windowSamples) {
+        // окно нулевой длины: лимит пересчитывается, как только набрано windowSamples замеров
+        return new AdaptiveConcurrencyLimiter(new SimpleMeterRegistry(), initial, min, max, 1.0, 0, windowSamples, 1000);
+    }
+
+    private static void hold(AdaptiveConcurrencyLimiter limiter, int requests) {
+        for (int i = 0; i < requests; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriority.CRITICAL));
+        }
+    }
+
+    private static void complete(AdaptiveConcurrencyLimiter limiter, RequestPriority priority, long latencyNanos) {
+        assertTrue(limiter.tryAcquire(priority));
+        limiter.release(priority, latencyNanos);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.bankcards.security.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static UserRateLimiter.Limiter limiter(int capacity, double refillPerSecond) {
+        RateLimitProperties.Budget budget = new RateLimitProperties.Budget();
+        budget.setCapacity(capacity);
+        budget.setRefillPerSecond(refillPerSecond);
+        return new UserRateLimiter.Limiter("test", budget, 1000, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void allowsBurstUpToCapacity() {
+        UserRateLimiter.Limiter limiter = limiter(5, 1);
+        UUID user = UUID.randomUUID();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire(user, 0));
+        }
+        long wait = limiter.tryAcquire(user, 0);
+        assertTrue(wait > 0 && wait <= SECOND, "wait: " + wait);
+    }
+
+    @Test
+    void refillsAtConfiguredRate() {
+        UserRateLimiter.Limiter limiter = limiter(2, 2);
+        UUID user = UUID.randomUUID();
+        limiter.tryAcquire(user, 0);
+        limiter.tryAcquire(user, 0);
+
+        assertTrue(limiter.tryAcquire(user, SECOND / 4) > 0);
+        assertEquals(0, limiter.tryAcquire(user, SECOND / 2));
+        assertTrue(limiter.tryAcquire(user, SECOND / 2) > 0);
+    }
+
+    @Test
+    void usersHaveIndependentBudgets() {
+        UserRateLimiter.Limiter limiter = limiter(3, 1);
+        UUID noisy = UUID.randomUUID();
+        UUID quiet = UUID.randomUUID();
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire(noisy, 0);
+        }
+
+        assertEquals(0, limiter.tryAcquire(quiet, 0));
+    }
+
+    @Test
+    void rejectsUnknownBudget() {
+        RateLimitProperties properties = new RateLimitProperties();
+        UserRateLimiter rateLimiter = new UserRateLimiter(properties, new SimpleMeterRegistry());
+
+        assertThrows(IllegalArgumentException.class, () -> rateLimiter.tryAcquire("cards", UUID.randomUUID()));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.bankcards.security.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessTokenDenyListTest {
+
+    private final AccessTokenDenyList denyList = new AccessTokenDenyList(60_000, 1024);
+
+    @Test
+    void revokedTokensAreReported() {
+        Instant expiresAt = Instant.now().plus(10, ChronoUnit.MINUTES);
+        String jti = UUID.randomUUID().toString();
+
+        denyList.revoke(jti, expiresAt);
+
+        assertTrue(denyList.isRevoked(jti, expiresAt));
+    }
+
+    @Test
+    void bloomFilterFalsePositivesAreNotReported() {
+        Instant expiresAt = Instant.now().plus(10, ChronoUnit.MINUTES);
+        for (int i = 0; i < 2000; i++) {
+            denyList.revoke("revoked-" + i, expiresAt);
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            assertFalse(denyList.isRevoked("active-" + i, expiresAt));
+        }
+    }
+
+    @Test
+    void expiredTokensAreNotStored() {
+        Instant expiresAt = Instant.now().minus(1, ChronoUnit.MINUTES);
+
+        denyList.revoke("expired", expiresAt);
+
+        assertFalse(denyList.isRevoked("expired", expiresAt));
+    }
+
+    @Test
+    void expiredBucketsAreEvicted() {
+        AccessTokenDenyList shortLived = new AccessTokenDenyList(1, 1024);
+        Instant expiresAt = Instant.now().plusMillis(20);
+        shortLived.revoke("short", expiresAt);
+        assertTrue(shortLived.isRevoked("short", expiresAt));
+
+        while (!Instant.now().isAfter(expiresAt.plusMillis(2))) {
+            Thread.onSpinWait();
+        }
+        shortLived.evictExpiredBuckets();
+
+        assertFalse(shortLived.isRevoked("short", expiresAt));
+    }
+}
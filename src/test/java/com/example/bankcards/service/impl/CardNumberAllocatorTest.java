@@ -0,0 +1,105 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.exception.InvalidCardOperationException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.CardNumberUtils;
+import com.example.bankcards.util.Throughput;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Slf4j
+class CardNumberAllocatorTest {
+
+    /**
+     * Время обращения к последовательности в базе данных, имитируемое в сравнении скорости выдачи.
+     */
+    private static final long SEQUENCE_ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private final CardRepository cardRepository = mock(CardRepository.class);
+    private final AtomicLong sequence = new AtomicLong();
+
+    CardNumberAllocatorTest() {
+        when(cardRepository.nextCardNumberBlock()).thenAnswer(invocation -> sequence.getAndIncrement());
+    }
+
+    @Test
+    void allocatesUniqueLuhnValidNumbers() {
+        CardNumberAllocator allocator = new CardNumberAllocator(cardRepository, Set.of("400000"), 100);
+        Set<String> numbers = new HashSet<>();
+
+        for (int i = 0; i < 10_000; i++) {
+            String number = allocator.allocate("400000");
+            assertEquals(16, number.length());
+            assertTrue(number.startsWith("400000"));
+            assertTrue(CardNumberUtils.isLuhnValid(number), number);
+            assertTrue(numbers.add(number), number);
+        }
+        verify(cardRepository, times(100)).nextCardNumberBlock();
+    }
+
+    @Test
+    void consecutiveNumbersAreNotAdjacent() {
+        CardNumberAllocator allocator = new CardNumberAllocator(cardRepository, Set.of("400000"), 100);
+
+        long first = Long.parseLong(allocator.allocate(null).substring(6, 15));
+        long second = Long.parseLong(allocator.allocate(null).substring(6, 15));
+
+        assertNotEquals(1, Math.abs(second - first));
+    }
+
+    @Test
+    void rejectsUnsupportedBin() {
+        CardNumberAllocator allocator = new CardNumberAllocator(cardRepository, Set.of("400000"), 100);
+
+        assertThrows(InvalidCardOperationException.class, () -> allocator.allocate("510000"));
+    }
+
+    @Test
+    void rejectsMalformedConfiguredBin() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CardNumberAllocator(cardRepository, Set.of("4000"), 100));
+    }
+
+    /**
+     * Сравнивает скорость выдачи номеров: блоками из последовательности, по одному значению
+     * последовательности на номер (размер блока 1) и прежней генерацией случайных цифр,
+     * которая не дает ни корректной контрольной цифры, ни уникальности без проверки в базе данных.
+     */
+    @Test
+    void compareAllocationRates() throws InterruptedException {
+        when(cardRepository.nextCardNumberBlock()).thenAnswer(invocation -> {
+            LockSupport.parkNanos(SEQUENCE_ROUND_TRIP_NANOS);
+            return sequence.getAndIncrement();
+        });
+        int threads = 4;
+        Duration duration = Duration.ofMillis(300);
+        CardNumberAllocator perNumber = new CardNumberAllocator(cardRepository, Set.of("400000"), 1);
+        CardNumberAllocator blocks = new CardNumberAllocator(cardRepository, Set.of("400000"), 1000);
+
+        double perNumberRate = Throughput.measure(threads, duration, () -> perNumber.allocate(null));
+        double blockRate = Throughput.measure(threads, duration, () -> blocks.allocate(null));
+        double randomRate = Throughput.measure(threads, duration, CardNumberUtils::generateCardNumber);
+
+        log.info("compareAllocationRates[1]: {} threads, {} us per sequence call: block size 1 {} numbers/s, " +
+                        "block size 1000 {} numbers/s, random digits {} numbers/s",
+                threads, TimeUnit.NANOSECONDS.toMicros(SEQUENCE_ROUND_TRIP_NANOS),
+                Math.round(perNumberRate), Math.round(blockRate), Math.round(randomRate));
+        assertTrue(blockRate > perNumberRate);
+    }
+}
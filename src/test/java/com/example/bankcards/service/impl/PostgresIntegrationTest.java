@@ -0,0 +1,74 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.entity.enums.Role;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Общая основа интеграционных тестов на PostgreSQL. Контейнер запускается один раз на все тесты,
+ * поэтому кешированный контекст Spring не ссылается на остановленную базу.
+ * Наследники помечаются {@code @Testcontainers(disabledWithoutDocker = true)}.
+ */
+@SpringBootTest(properties = {
+        "TOKEN_SECRET_KEY=dGVzdC1zaWduaW5nLWtleS10ZXN0LXNpZ25pbmcta2V5LTAxMjM0NTY3ODk=",
+        "ACCESS_TOKEN_TTL=3600000",
+        "REFRESH_TOKEN_TTL=604800000",
+        "ENCRYPTION_PASSWORD=test-password",
+        "ENCRYPTION_SALT=5c0744940b5c369b",
+        "CARD_NUMBER_HASH_KEY=test-hash-key",
+        "rate-limit.enabled=false"
+})
+abstract class PostgresIntegrationTest {
+
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected CardRepository cardRepository;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        POSTGRES.start();
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("USER_LOGIN", POSTGRES::getUsername);
+        registry.add("USER_PASSWORD", POSTGRES::getPassword);
+    }
+
+    protected User createUser(String prefix) {
+        return userRepository.save(User.builder()
+                .email(prefix + "-" + UUID.randomUUID() + "@example.com")
+                .firstName("Integration")
+                .lastName("Test")
+                .password("unused")
+                .role(Role.ROLE_USER)
+                .enabled(true)
+                .accountNonLocked(true)
+                .build());
+    }
+
+    protected UUID createCard(User user, String number, BigDecimal balance) {
+        return cardRepository.save(Card.builder()
+                .cardNumber(number)
+                .lastFourDigits(number.substring(number.length() - 4))
+                .cardOwner("INTEGRATION TEST")
+                .expiryDate(LocalDate.now().plusYears(3))
+                .status(CardStatus.ACTIVE)
+                .balance(balance)
+                .user(user)
+                .build()).getId();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.service.AdminService;
+import com.example.bankcards.service.TransactionService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сравнивает пропускную способность зачислений на одну "горячую" карту с обычным балансом
+ * и с балансом, распределенным по слотам. Каждый поток переводит со своей карты, поэтому
+ * потоки конкурируют только за строку (или слоты) карты-получателя. Результат выводится в лог.
+ * Требует Docker для запуска PostgreSQL.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@Slf4j
+class StripedBalanceBenchmarkTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 16;
+    private static final int WARMUP_PER_THREAD = 20;
+    private static final int CREDITS_PER_THREAD = 200;
+    private static final int SLOTS = 8;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void stripedCardSustainsConcurrentCredits() throws Exception {
+        User user = createUser("benchmark");
+        List<UUID> sources = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            sources.add(createCard(user, "benchmark-source-" + String.format("%04d", i), new BigDecimal("100000.00")));
+        }
+        UUID plain = createCard(user, "benchmark-plain-0000", BigDecimal.ZERO);
+        UUID striped = createCard(user, "benchmark-striped-0000", BigDecimal.ZERO);
+        adminService.updateCardStriping(striped, SLOTS);
+
+        run(user, sources, plain, WARMUP_PER_THREAD);
+        run(user, sources, striped, WARMUP_PER_THREAD);
+        double plainOps = run(user, sources, plain, CREDITS_PER_THREAD);
+        double stripedOps = run(user, sources, striped, CREDITS_PER_THREAD);
+
+        log.info("stripedCardSustainsConcurrentCredits[1]: {} threads, plain card {} ops/s, {} slots {} ops/s ({}x)",
+                THREADS, Math.round(plainOps), SLOTS, Math.round(stripedOps),
+                String.format("%.2f", stripedOps / plainOps));
+
+        BigDecimal expected = AMOUNT.multiply(BigDecimal.valueOf((long) THREADS * (WARMUP_PER_THREAD + CREDITS_PER_THREAD)));
+        assertEquals(0, expected.compareTo(totalBalance(plain)));
+        assertEquals(0, expected.compareTo(totalBalance(striped)));
+    }
+
+    private BigDecimal totalBalance(UUID cardId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT c.balance + COALESCE((SELECT SUM(s.balance) FROM card_balance_slots s WHERE s.card_id = c.id), 0) " +
+                        "FROM cards c WHERE c.id = ?",
+                BigDecimal.class, cardId);
+    }
+
+    /**
+     * Выполняет заданное число зачислений из каждого потока и возвращает число операций в секунду.
+     */
+    private double run(User user, List<UUID> sources, UUID target, int perThread) throws InterruptedException {
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (UUID source : sources) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        transactionService.transferBetweenOwnCards(source, target, AMOUNT, user);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+        long elapsed = System.nanoTime() - begin;
+
+        assertTrue(failures.isEmpty(), () -> "failed credits: " + failures);
+        return (double) THREADS * perThread * TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+}
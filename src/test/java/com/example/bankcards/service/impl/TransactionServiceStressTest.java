@@ -0,0 +1,145 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ApiException;
+import com.example.bankcards.exception.InvalidCardOperationException;
+import com.example.bankcards.service.AdminService;
+import com.example.bankcards.service.TransactionService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочная проверка переводов: конкурентные одиночные и пакетные переводы между картами,
+ * в том числе с распределенным балансом, не должны создавать или уничтожать деньги и не должны
+ * исчерпывать повторы из-за взаимных блокировок. Пропускная способность выводится в лог.
+ * Требует Docker для запуска PostgreSQL.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@Slf4j
+class TransactionServiceStressTest extends PostgresIntegrationTest {
+
+    private static final int CARDS = 6;
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 150;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentTransfersConserveMoney() throws Exception {
+        User user = createUser("stress");
+        List<UUID> cardIds = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            cardIds.add(createCard(user, "stress-" + String.format("%04d", i), INITIAL_BALANCE));
+        }
+        adminService.updateCardStriping(cardIds.get(0), 4);
+        adminService.updateCardStriping(cardIds.get(1), 2);
+        BigDecimal expectedTotal = INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARDS));
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        try {
+                            if (i % 10 == 0) {
+                                transactionService.transferBatch(randomTransfers(cardIds, random), random.nextBoolean(), user);
+                            } else {
+                                int from = random.nextInt(CARDS);
+                                int to = (from + 1 + random.nextInt(CARDS - 1)) % CARDS;
+                                transactionService.transferBetweenOwnCards(cardIds.get(from), cardIds.get(to),
+                                        randomAmount(random), user);
+                            }
+                            completed.incrementAndGet();
+                        } catch (InvalidCardOperationException e) {
+                            rejected.incrementAndGet();
+                        } catch (ApiException e) {
+                            if (e.getHttpStatus() != HttpStatus.CONFLICT) {
+                                throw e;
+                            }
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable e) {
+                    unexpected.add(e);
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+        long elapsed = System.nanoTime() - begin;
+
+        log.info("concurrentTransfersConserveMoney[1]: {} completed, {} rejected, {} conflicts, {} transfers/s",
+                completed.get(), rejected.get(), conflicts.get(),
+                Math.round(completed.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed));
+
+        assertTrue(unexpected.isEmpty(), () -> "unexpected failures: " + unexpected);
+        assertTrue(completed.get() > 0);
+        // 409 возвращается только после исчерпания повторов: это взаимные блокировки, а не отказ по балансу
+        assertEquals(0, conflicts.get(), "transfers gave up after lock conflicts");
+        assertEquals(0, expectedTotal.compareTo(
+                cardRepository.summarizeBalancesByUserId(user.getId()).getTotalBalance()));
+
+        Integer negative = jdbcTemplate.queryForObject(
+                "SELECT (SELECT COUNT(*) FROM cards WHERE user_id = ? AND balance < 0) + " +
+                        "(SELECT COUNT(*) FROM card_balance_slots s JOIN cards c ON c.id = s.card_id " +
+                        "WHERE c.user_id = ? AND s.balance < 0)",
+                Integer.class, user.getId(), user.getId());
+        assertEquals(0, negative);
+    }
+
+    private static List<TransferRequest> randomTransfers(List<UUID> cardIds, ThreadLocalRandom random) {
+        List<TransferRequest> transfers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int from = random.nextInt(cardIds.size());
+            int to = (from + 1 + random.nextInt(cardIds.size() - 1)) % cardIds.size();
+            transfers.add(TransferRequest.builder()
+                    .fromCardId(cardIds.get(from))
+                    .toCardId(cardIds.get(to))
+                    .amount(randomAmount(random))
+                    .build());
+        }
+        return transfers;
+    }
+
+    private static BigDecimal randomAmount(ThreadLocalRandom random) {
+        return BigDecimal.valueOf(random.nextInt(1, 5000), 2);
+    }
+}
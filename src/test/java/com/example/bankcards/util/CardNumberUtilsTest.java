@@ -0,0 +1,41 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CardNumberUtilsTest {
+
+    @Test
+    void computesLuhnCheckDigit() {
+        assertEquals('3', CardNumberUtils.luhnCheckDigit("7992739871"));
+        assertEquals('1', CardNumberUtils.luhnCheckDigit("411111111111111"));
+        assertEquals('4', CardNumberUtils.luhnCheckDigit("555555555555444"));
+    }
+
+    @Test
+    void validatesLuhnNumbers() {
+        assertTrue(CardNumberUtils.isLuhnValid("4111111111111111"));
+        assertTrue(CardNumberUtils.isLuhnValid("5555555555554444"));
+        assertFalse(CardNumberUtils.isLuhnValid("4111111111111112"));
+        assertFalse(CardNumberUtils.isLuhnValid("4"));
+        assertFalse(CardNumberUtils.isLuhnValid(null));
+    }
+
+    @Test
+    void detectsSingleDigitErrors() {
+        String valid = "4000001234567899";
+        assertTrue(CardNumberUtils.isLuhnValid(valid));
+        for (int position = 0; position < valid.length(); position++) {
+            for (char digit = '0'; digit <= '9'; digit++) {
+                if (digit == valid.charAt(position)) {
+                    continue;
+                }
+                String corrupted = valid.substring(0, position) + digit + valid.substring(position + 1);
+                assertFalse(CardNumberUtils.isLuhnValid(corrupted), corrupted);
+            }
+        }
+    }
+}
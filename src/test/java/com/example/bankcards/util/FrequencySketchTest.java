@@ -0,0 +1,49 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrequencySketchTest {
+
+    @Test
+    void estimateIsNeverBelowActualCount() {
+        FrequencySketch sketch = new FrequencySketch(4, 256);
+        for (int key = 0; key < 1000; key++) {
+            for (int i = 0; i <= key % 7; i++) {
+                sketch.increment("key-" + key);
+            }
+        }
+
+        for (int key = 0; key < 1000; key++) {
+            assertTrue(sketch.estimate("key-" + key) >= key % 7 + 1);
+        }
+    }
+
+    @Test
+    void incrementReturnsNewEstimate() {
+        FrequencySketch sketch = new FrequencySketch(4, 1024);
+
+        assertEquals(1, sketch.increment("alice@example.com"));
+        assertEquals(2, sketch.increment("alice@example.com"));
+        assertEquals(2, sketch.estimate("alice@example.com"));
+        assertEquals(0, sketch.estimate("bob@example.com"));
+    }
+
+    @Test
+    void decayHalvesCounters() {
+        FrequencySketch sketch = new FrequencySketch(4, 1024);
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("198.51.100.7");
+        }
+
+        sketch.decay();
+        assertEquals(5, sketch.estimate("198.51.100.7"));
+
+        sketch.decay();
+        sketch.decay();
+        sketch.decay();
+        assertEquals(0, sketch.estimate("198.51.100.7"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.bankcards.util;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Простое измерение пропускной способности для сравнительных тестов: операция выполняется
+ * из нескольких потоков в течение заданного времени после прогрева такой же длительности.
+ * Это не замена JMH; результаты годятся для сравнения вариантов в одном запуске, а не как абсолютные числа.
+ */
+public final class Throughput {
+
+    private Throughput() {
+    }
+
+    /**
+     * @return число операций в секунду по всем потокам
+     */
+    public static double measure(int threads, Duration duration, Runnable operation) throws InterruptedException {
+        run(threads, duration, operation);
+        return run(threads, duration, operation) / (duration.toNanos() / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static long run(int threads, Duration duration, Runnable operation) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + duration.toNanos();
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    while (System.nanoTime() < deadline) {
+                        operation.run();
+                        operations.increment();
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        if (!executor.awaitTermination(duration.toMillis() + TimeUnit.MINUTES.toMillis(1), TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("throughput run did not finish");
+        }
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("operation failed", failures.peek());
+        }
+        return operations.sum();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.bankcards.util.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AesGcmTest {
+
+    private static SecretKey newKey() throws NoSuchAlgorithmException {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        return generator.generateKey();
+    }
+
+    @Test
+    void roundTrip() throws Exception {
+        SecretKey key = newKey();
+        byte[] plaintext = "4000001234567899".getBytes(StandardCharsets.UTF_8);
+
+        byte[] sealed = AesGcm.seal(key, plaintext);
+
+        assertEquals(12 + plaintext.length + 16, sealed.length);
+        assertArrayEquals(plaintext, AesGcm.open(key, sealed));
+    }
+
+    @Test
+    void usesFreshIvForEveryValue() throws Exception {
+        SecretKey key = newKey();
+        byte[] plaintext = "4000001234567899".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(java.util.Arrays.equals(AesGcm.seal(key, plaintext), AesGcm.seal(key, plaintext)));
+    }
+
+    @Test
+    void rejectsTamperedCiphertext() throws Exception {
+        SecretKey key = newKey();
+        byte[] sealed = AesGcm.seal(key, "4000001234567899".getBytes(StandardCharsets.UTF_8));
+        sealed[sealed.length - 1] ^= 1;
+
+        assertThrows(IllegalStateException.class, () -> AesGcm.open(key, sealed));
+    }
+
+    @Test
+    void rejectsWrongKey() throws Exception {
+        byte[] sealed = AesGcm.seal(newKey(), "4000001234567899".getBytes(StandardCharsets.UTF_8));
+        SecretKey otherKey = newKey();
+
+        assertThrows(IllegalStateException.class, () -> AesGcm.open(otherKey, sealed));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.bankcards.util.crypto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.encrypt.AesBytesEncryptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AesGcmTextEncryptorTest {
+
+    private static final String PASSWORD = "password";
+    private static final String SALT = "5c0744940b5c369b";
+
+    private final AesGcmTextEncryptor encryptor = new AesGcmTextEncryptor(PASSWORD, SALT);
+
+    @Test
+    void roundTrip() {
+        String encrypted = encryptor.encrypt("4000001234567899");
+
+        assertTrue(encrypted.startsWith(AesGcmTextEncryptor.VERSION_PREFIX));
+        assertEquals("4000001234567899", encryptor.decrypt(encrypted));
+    }
+
+    @Test
+    void sameValueEncryptsDifferently() {
+        assertNotEquals(encryptor.encrypt("4000001234567899"), encryptor.encrypt("4000001234567899"));
+    }
+
+    @Test
+    void decryptsLegacyCbcValues() {
+        AesBytesEncryptor legacy = new AesBytesEncryptor(PASSWORD, SALT);
+        String encrypted = Base64.getEncoder().encodeToString(
+                legacy.encrypt("4000001234567899".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("4000001234567899", encryptor.decrypt(encrypted));
+    }
+
+    @Test
+    void keyIsDerivedFromPasswordAndSalt() {
+        String encrypted = encryptor.encrypt("4000001234567899");
+
+        assertEquals("4000001234567899", new AesGcmTextEncryptor(PASSWORD, SALT).decrypt(encrypted));
+    }
+}
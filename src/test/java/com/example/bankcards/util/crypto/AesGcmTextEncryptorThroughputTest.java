@@ -0,0 +1,76 @@
+package com.example.bankcards.util.crypto;
+
+import com.example.bankcards.util.Throughput;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.encrypt.AesBytesEncryptor;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+import org.springframework.security.crypto.keygen.KeyGenerators;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнивает пропускную способность шифрования номеров карт прежним AES-CBC ({@link AesBytesEncryptor})
+ * и {@link AesGcmTextEncryptor} в одном и нескольких потоках. Результат выводится в лог.
+ * Прежний шифратор создавался без генератора IV и использовал нулевой IV, поэтому для честного
+ * сравнения измеряется и AES-CBC со случайным IV: у GCM случайный IV генерируется на каждое шифрование.
+ */
+@Slf4j
+class AesGcmTextEncryptorThroughputTest {
+
+    private static final String PASSWORD = "password";
+    private static final String SALT = "5c0744940b5c369b";
+    private static final String CARD_NUMBER = "4000001234567899";
+    private static final Duration DURATION = Duration.ofMillis(200);
+    private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    @Test
+    void compareCbcAndGcm() throws InterruptedException {
+        TextEncryptor legacy = cbc(new AesBytesEncryptor(PASSWORD, SALT));
+        TextEncryptor randomIv = cbc(new AesBytesEncryptor(PASSWORD, SALT, KeyGenerators.secureRandom(16)));
+        TextEncryptor gcm = new AesGcmTextEncryptor(PASSWORD, SALT);
+        String legacyValue = legacy.encrypt(CARD_NUMBER);
+        String randomIvValue = randomIv.encrypt(CARD_NUMBER);
+        String gcmValue = gcm.encrypt(CARD_NUMBER);
+        assertEquals(CARD_NUMBER, legacy.decrypt(legacyValue));
+        assertEquals(CARD_NUMBER, randomIv.decrypt(randomIvValue));
+        assertEquals(CARD_NUMBER, gcm.decrypt(gcmValue));
+
+        for (int threads : new int[]{1, THREADS}) {
+            report("encrypt", threads,
+                    Throughput.measure(threads, DURATION, () -> legacy.encrypt(CARD_NUMBER)),
+                    Throughput.measure(threads, DURATION, () -> randomIv.encrypt(CARD_NUMBER)),
+                    Throughput.measure(threads, DURATION, () -> gcm.encrypt(CARD_NUMBER)));
+            report("decrypt", threads,
+                    Throughput.measure(threads, DURATION, () -> legacy.decrypt(legacyValue)),
+                    Throughput.measure(threads, DURATION, () -> randomIv.decrypt(randomIvValue)),
+                    Throughput.measure(threads, DURATION, () -> gcm.decrypt(gcmValue)));
+        }
+    }
+
+    private static void report(String operation, int threads, double legacy, double randomIv, double gcm) {
+        log.info("compareCbcAndGcm[1]: {} with {} threads: CBC zero IV {} ops/s, CBC random IV {} ops/s, GCM {} ops/s",
+                operation, threads, Math.round(legacy), Math.round(randomIv), Math.round(gcm));
+    }
+
+    /**
+     * Обертка над {@link AesBytesEncryptor} в том виде, в каком шифратор был до перехода на AES-GCM.
+     */
+    private static TextEncryptor cbc(AesBytesEncryptor bytesEncryptor) {
+        return new TextEncryptor() {
+            @Override
+            public String encrypt(String text) {
+                return Base64.getEncoder().encodeToString(bytesEncryptor.encrypt(text.getBytes(StandardCharsets.UTF_8)));
+            }
+
+            @Override
+            public String decrypt(String encryptedText) {
+                return new String(bytesEncryptor.decrypt(Base64.getDecoder().decode(encryptedText)), StandardCharsets.UTF_8);
+            }
+        };
+    }
+}
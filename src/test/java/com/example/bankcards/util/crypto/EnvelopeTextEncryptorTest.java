@@ -0,0 +1,92 @@
+package com.example.bankcards.util.crypto;
+
+import com.example.bankcards.service.DataKeyService;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EnvelopeTextEncryptorTest {
+
+    private final InMemoryDataKeyService dataKeyService = new InMemoryDataKeyService();
+    private final AesGcmTextEncryptor masterKeyEncryptor = new AesGcmTextEncryptor("password", "5c0744940b5c369b");
+    private final EnvelopeTextEncryptor encryptor = new EnvelopeTextEncryptor(dataKeyService, masterKeyEncryptor);
+
+    @Test
+    void roundTrip() {
+        String encrypted = encryptor.encrypt("4000001234567899");
+
+        assertTrue(encrypted.startsWith(EnvelopeTextEncryptor.prefixOf(dataKeyService.activeKeyId)));
+        assertEquals("4000001234567899", encryptor.decrypt(encrypted));
+    }
+
+    @Test
+    void decryptsValuesOfRotatedKeys() {
+        String before = encryptor.encrypt("4000001234567899");
+        UUID previousKey = dataKeyService.activeKeyId;
+
+        dataKeyService.rotate();
+        String after = encryptor.encrypt("4000001234567899");
+
+        assertTrue(before.startsWith(EnvelopeTextEncryptor.prefixOf(previousKey)));
+        assertTrue(after.startsWith(EnvelopeTextEncryptor.prefixOf(dataKeyService.activeKeyId)));
+        assertEquals("4000001234567899", encryptor.decrypt(before));
+        assertEquals("4000001234567899", encryptor.decrypt(after));
+    }
+
+    @Test
+    void decryptsLegacyValuesWithMasterKey() {
+        String legacy = masterKeyEncryptor.encrypt("4000001234567899");
+
+        assertEquals("4000001234567899", encryptor.decrypt(legacy));
+    }
+
+    @Test
+    void rejectsMalformedCiphertext() {
+        assertThrows(IllegalArgumentException.class, () -> encryptor.decrypt(EnvelopeTextEncryptor.VERSION_PREFIX + "x"));
+    }
+
+    private static final class InMemoryDataKeyService implements DataKeyService {
+
+        private final Map<UUID, SecretKey> keys = new HashMap<>();
+        private UUID activeKeyId;
+
+        InMemoryDataKeyService() {
+            rotate();
+        }
+
+        @Override
+        public DataKeyMaterial getActiveKey() {
+            return new DataKeyMaterial(activeKeyId, keys.get(activeKeyId));
+        }
+
+        @Override
+        public SecretKey getKey(UUID keyId) {
+            SecretKey key = keys.get(keyId);
+            if (key == null) {
+                throw new IllegalStateException("Unknown data key: " + keyId);
+            }
+            return key;
+        }
+
+        @Override
+        public UUID rotate() {
+            try {
+                KeyGenerator generator = KeyGenerator.getInstance("AES");
+                generator.init(256);
+                activeKeyId = UUID.randomUUID();
+                keys.put(activeKeyId, generator.generateKey());
+                return activeKeyId;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}